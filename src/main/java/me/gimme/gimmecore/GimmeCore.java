@@ -1,6 +1,13 @@
 package me.gimme.gimmecore;
 
+import me.gimme.gimmecore.chat.BossBarManager;
+import me.gimme.gimmecore.chat.HudBuffer;
+import me.gimme.gimmecore.language.PlaceholderRegistry;
+import me.gimme.gimmecore.manager.RefreshGovernor;
 import me.gimme.gimmecore.manager.WarmupActionManager;
+import me.gimme.gimmecore.scoreboard.SidebarCompositor;
+import me.gimme.gimmecore.util.IoExecutor;
+import me.gimme.gimmecore.util.PersistenceRegistry;
 import org.bukkit.event.Listener;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -8,7 +15,20 @@ public final class GimmeCore extends JavaPlugin {
 
     public static final String PLUGIN_NAME = "GimmeCore";
 
+    private RefreshGovernor refreshGovernor;
     private WarmupActionManager warmupActionManager;
+    private SidebarCompositor sidebarCompositor;
+    private PlaceholderRegistry placeholderRegistry;
+    private HudBuffer hudBuffer;
+    private BossBarManager bossBarManager;
+    private PersistenceRegistry persistenceRegistry;
+
+    /**
+     * @return the refresh governor that throttles cosmetic display updates under load
+     */
+    public RefreshGovernor getRefreshGovernor() {
+        return refreshGovernor;
+    }
 
     /**
      * @return the warmup action manager
@@ -17,10 +37,62 @@ public final class GimmeCore extends JavaPlugin {
         return warmupActionManager;
     }
 
+    /**
+     * @return the sidebar compositor shared by all plugins
+     */
+    public SidebarCompositor getSidebarCompositor() {
+        return sidebarCompositor;
+    }
+
+    /**
+     * @return the placeholder resolver registry shared by all plugins
+     */
+    public PlaceholderRegistry getPlaceholderRegistry() {
+        return placeholderRegistry;
+    }
+
+    /**
+     * @return the buffer that coalesces action bar and title updates of every player
+     */
+    public HudBuffer getHudBuffer() {
+        return hudBuffer;
+    }
+
+    /**
+     * @return the manager that runs all progress bars
+     */
+    public BossBarManager getBossBarManager() {
+        return bossBarManager;
+    }
+
+    /**
+     * @return the registry of persistent stores that are flushed in parallel when their plugins are disabled
+     */
+    public PersistenceRegistry getPersistenceRegistry() {
+        return persistenceRegistry;
+    }
+
     @Override
     public void onEnable() {
-        warmupActionManager = new WarmupActionManager(this);
-        registerListener(new WarmupActionManager(this));
+        refreshGovernor = new RefreshGovernor(this).start();
+        hudBuffer = new HudBuffer(this).start();
+        bossBarManager = new BossBarManager(this, refreshGovernor).start();
+        warmupActionManager = new WarmupActionManager(this, refreshGovernor, hudBuffer);
+        sidebarCompositor = new SidebarCompositor(this).start();
+        placeholderRegistry = new PlaceholderRegistry(refreshGovernor);
+        registerListener(warmupActionManager);
+        registerListener(sidebarCompositor);
+        registerListener(hudBuffer);
+        getLogger().info("File I/O runs on " + (IoExecutor.getMetrics().getMode() == IoExecutor.Mode.VIRTUAL
+                ? "virtual threads" : IoExecutor.getMetrics().getThreads() + " platform threads"));
+        persistenceRegistry = new PersistenceRegistry(this);
+        registerListener(persistenceRegistry);
+    }
+
+    @Override
+    public void onDisable() {
+        // Any stores not flushed by their plugins being disabled
+        if (persistenceRegistry != null) persistenceRegistry.flushAll();
     }
 
     private void registerListener(Listener listener) {
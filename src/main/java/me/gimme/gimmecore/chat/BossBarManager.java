@@ -0,0 +1,179 @@
+package me.gimme.gimmecore.chat;
+
+import me.gimme.gimmecore.manager.RefreshGovernor;
+import org.bukkit.Bukkit;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarFlag;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Runs every progress bar from a single tick task.
+ * <p>
+ * A progress bar is only sent a new progress when it has changed by at least one visible pixel, progress bars started
+ * with the same key share a single boss bar, and boss bars of finished progress bars are pooled and reused for new
+ * progress bars instead of being recreated.
+ */
+public class BossBarManager {
+
+    /**
+     * The smallest change in progress that is visible on a boss bar, which is 182 pixels wide.
+     */
+    private static final double PROGRESS_THRESHOLD = 1d / 182;
+    private static final int REFRESH_PERIOD = 1;
+    private static final int THROTTLED_REFRESH_PERIOD = 5;
+    private static final int MAX_POOLED_BARS = 16;
+
+    private Plugin plugin;
+    private RefreshGovernor refreshGovernor;
+
+    private Map<String, ProgressBar> progressBarByKey = new HashMap<>();
+    private List<ProgressBar> progressBars = new ArrayList<>();
+    private Deque<BossBar> pool = new ArrayDeque<>();
+
+    public BossBarManager(@NotNull Plugin plugin, @NotNull RefreshGovernor refreshGovernor) {
+        this.plugin = plugin;
+        this.refreshGovernor = refreshGovernor;
+    }
+
+    /**
+     * Starts the task that updates all progress bars.
+     *
+     * @return this
+     */
+    @NotNull
+    public BossBarManager start() {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }.runTaskTimer(plugin, 1, 1);
+        return this;
+    }
+
+    /**
+     * Shows a progress bar that counts down from full to empty over the specified duration.
+     * <p>
+     * If a progress bar with the same key is already running, its boss bar is shared: the players are added to it, and
+     * its countdown, title, color, flags and stop condition are replaced by the new ones.
+     *
+     * @param owner         the plugin showing the progress bar, the progress bar is removed if it is disabled
+     * @param key           the key of the progress bar to share, or null for a progress bar of its own
+     * @param stopCondition a condition to remove the progress bar early, or null to only remove it when it runs out
+     * @param players       the players to show the progress bar to
+     * @param durationTicks the duration of the countdown in ticks
+     * @param title         the title of the progress bar
+     * @param color         the color of the progress bar
+     * @param flags         the flags of the progress bar
+     */
+    public void show(@NotNull Plugin owner, @Nullable String key, @Nullable Chat.StopCondition stopCondition,
+                     @NotNull Iterable<? extends Player> players, int durationTicks, @Nullable String title,
+                     @NotNull BarColor color, @NotNull BarFlag... flags) {
+        ProgressBar progressBar = key == null ? null : progressBarByKey.get(key);
+        if (progressBar == null) {
+            progressBar = new ProgressBar(key, acquire());
+            progressBars.add(progressBar);
+            if (key != null) progressBarByKey.put(key, progressBar);
+        }
+
+        progressBar.owner = owner;
+        progressBar.stopCondition = stopCondition;
+        progressBar.durationTicks = Math.max(1, durationTicks);
+        progressBar.ticks = durationTicks;
+        progressBar.sentProgress = -1;
+        progressBar.lastRefreshTick = -1;
+
+        BossBar bossBar = progressBar.bossBar;
+        bossBar.setTitle(title);
+        bossBar.setColor(color);
+        for (BarFlag flag : BarFlag.values()) {
+            bossBar.removeFlag(flag);
+        }
+        for (BarFlag flag : flags) {
+            bossBar.addFlag(flag);
+        }
+        for (Player player : players) {
+            bossBar.addPlayer(player);
+        }
+    }
+
+    /**
+     * Removes the progress bar with the specified key, if it is running.
+     *
+     * @param key the key of the progress bar
+     */
+    public void remove(@NotNull String key) {
+        ProgressBar progressBar = progressBarByKey.get(key);
+        if (progressBar == null) return;
+        progressBars.remove(progressBar);
+        release(progressBar);
+    }
+
+    private void tick() {
+        Iterator<ProgressBar> iterator = progressBars.iterator();
+        while (iterator.hasNext()) {
+            ProgressBar progressBar = iterator.next();
+
+            if (progressBar.ticks <= 0 || !progressBar.owner.isEnabled() ||
+                    (progressBar.stopCondition != null && progressBar.stopCondition.shouldStop())) {
+                iterator.remove();
+                release(progressBar);
+                continue;
+            }
+
+            double progress = (double) progressBar.ticks / progressBar.durationTicks;
+            if (Math.abs(progress - progressBar.sentProgress) >= PROGRESS_THRESHOLD &&
+                    refreshGovernor.shouldRefresh(progressBar.lastRefreshTick, REFRESH_PERIOD,
+                            THROTTLED_REFRESH_PERIOD)) {
+                progressBar.lastRefreshTick = refreshGovernor.getCurrentTick();
+                progressBar.sentProgress = progress;
+                progressBar.bossBar.setProgress(progress);
+            }
+
+            progressBar.ticks--;
+        }
+    }
+
+    @NotNull
+    private BossBar acquire() {
+        BossBar bossBar = pool.poll();
+        if (bossBar == null) return Bukkit.createBossBar(null, BarColor.WHITE, BarStyle.SOLID);
+
+        bossBar.setProgress(1);
+        bossBar.setVisible(true);
+        return bossBar;
+    }
+
+    private void release(@NotNull ProgressBar progressBar) {
+        if (progressBar.key != null) progressBarByKey.remove(progressBar.key);
+
+        BossBar bossBar = progressBar.bossBar;
+        bossBar.removeAll();
+        if (pool.size() < MAX_POOLED_BARS) pool.push(bossBar);
+    }
+
+    private static class ProgressBar {
+        private final String key;
+        private final BossBar bossBar;
+        private Plugin owner;
+        private Chat.StopCondition stopCondition;
+        private int durationTicks;
+        private int ticks;
+        private double sentProgress;
+        private long lastRefreshTick;
+
+        private ProgressBar(@Nullable String key, @NotNull BossBar bossBar) {
+            this.key = key;
+            this.bossBar = bossBar;
+        }
+    }
+
+}
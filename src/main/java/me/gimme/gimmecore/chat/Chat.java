@@ -1,23 +1,42 @@
 package me.gimme.gimmecore.chat;
 
+import me.gimme.gimmecore.GimmeCore;
+import me.gimme.gimmecore.language.LanguageManager;
 import net.md_5.bungee.api.ChatMessageType;
-import net.md_5.bungee.api.chat.TextComponent;
 import org.bukkit.Bukkit;
 import org.bukkit.boss.BarColor;
 import org.bukkit.boss.BarFlag;
-import org.bukkit.boss.BarStyle;
-import org.bukkit.boss.BossBar;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collections;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 public class Chat {
+
+    private static final int PARALLEL_RENDER_THRESHOLD = 16;
+
     public static void sendActionBar(@NotNull Player player, @NotNull String text) {
-        player.spigot().sendMessage(ChatMessageType.ACTION_BAR, new TextComponent(text));
+        sendActionBar(player, text, HudBuffer.PRIORITY_NORMAL);
+    }
+
+    /**
+     * Sets the action bar of a player through GimmeCore's HUD buffer, so that only the final action bar of the tick
+     * is sent.
+     *
+     * @param player   the player to send the action bar to
+     * @param text     the legacy color-coded text to send
+     * @param priority the priority of the action bar, see {@link HudBuffer#setActionBar(Player, String, int)}
+     */
+    public static void sendActionBar(@NotNull Player player, @NotNull String text, int priority) {
+        HudBuffer hudBuffer = JavaPlugin.getPlugin(GimmeCore.class).getHudBuffer();
+        if (hudBuffer != null) hudBuffer.setActionBar(player, text, priority);
+        else PreparedMessage.parse(text).send(player, ChatMessageType.ACTION_BAR);
     }
 
     public static void hideActionBar(@NotNull Player player) {
@@ -25,8 +44,181 @@ public class Chat {
     }
 
     public static void broadcastActionBar(@NotNull String text) {
+        broadcastActionBar(text, HudBuffer.PRIORITY_NORMAL);
+    }
+
+    /**
+     * Sets the action bar of every online player through GimmeCore's HUD buffer, parsing the text into components
+     * only once.
+     *
+     * @param text     the legacy color-coded text to send
+     * @param priority the priority of the action bar, see {@link HudBuffer#setActionBar(Player, String, int)}
+     */
+    public static void broadcastActionBar(@NotNull String text, int priority) {
+        PreparedMessage message = PreparedMessage.of(text);
+        HudBuffer hudBuffer = JavaPlugin.getPlugin(GimmeCore.class).getHudBuffer();
+        for (Player player : Bukkit.getServer().getOnlinePlayers()) {
+            if (hudBuffer != null) hudBuffer.setActionBar(player, message, priority);
+            else message.send(player, ChatMessageType.ACTION_BAR);
+        }
+    }
+
+    /**
+     * Sends a chat message to every online player, parsing the text into components only once.
+     *
+     * @param text the legacy color-coded text to send
+     */
+    public static void broadcastMessage(@NotNull String text) {
+        PreparedMessage.of(text).send(Bukkit.getServer().getOnlinePlayers(), ChatMessageType.CHAT);
+    }
+
+    public static void broadcastTitle(@Nullable String title, @Nullable String subtitle, int fadeIn, int stay,
+                                      int fadeOut) {
+        broadcastTitle(title, subtitle, fadeIn, stay, fadeOut, HudBuffer.PRIORITY_NORMAL);
+    }
+
+    /**
+     * Sets the title of every online player through GimmeCore's HUD buffer.
+     *
+     * @param title    the title text, or null for no title
+     * @param subtitle the subtitle text, or null for no subtitle
+     * @param fadeIn   the fade in time in ticks
+     * @param stay     the stay time in ticks
+     * @param fadeOut  the fade out time in ticks
+     * @param priority the priority of the title, see {@link HudBuffer#setTitle(Player, String, String, int, int, int,
+     *                 int)}
+     */
+    public static void broadcastTitle(@Nullable String title, @Nullable String subtitle, int fadeIn, int stay,
+                                      int fadeOut, int priority) {
+        HudBuffer hudBuffer = JavaPlugin.getPlugin(GimmeCore.class).getHudBuffer();
         for (Player player : Bukkit.getServer().getOnlinePlayers()) {
-            sendActionBar(player, text);
+            if (hudBuffer != null) hudBuffer.setTitle(player, title, subtitle, fadeIn, stay, fadeOut, priority);
+            else player.sendTitle(title, subtitle, fadeIn, stay, fadeOut);
+        }
+    }
+
+    /**
+     * Broadcasts a language string to the specified players as a chat message.
+     *
+     * @param plugin     the plugin sending the message
+     * @param text       the language string to send
+     * @param recipients the players to send the message to
+     * @return a future that completes once the message has been sent to all recipients
+     * @see #broadcast(Plugin, LanguageManager.Text, Collection, ChatMessageType)
+     */
+    @NotNull
+    public static CompletableFuture<Void> broadcast(@NotNull Plugin plugin, @NotNull LanguageManager.Text text,
+                                                    @NotNull Collection<? extends Player> recipients) {
+        return broadcast(plugin, text, recipients, ChatMessageType.CHAT);
+    }
+
+    /**
+     * Broadcasts a language string to the specified players, rendered for each recipient in their locale and with
+     * their resolved placeholders.
+     * <p>
+     * The language string is snapshotted for every recipient on the main thread, and recipients with equal snapshots
+     * share a single rendered message. With many distinct messages, rendering runs in parallel on the common
+     * fork-join pool, and all messages are then sent together in one batch on the main thread, action bars through
+     * GimmeCore's HUD buffer. Must be called on the main thread.
+     *
+     * @param plugin     the plugin sending the message
+     * @param text       the language string to send
+     * @param recipients the players to send the message to
+     * @param type       the position of the message, {@link ChatMessageType#CHAT} for chat messages
+     * @return a future that completes once the message has been sent to all recipients, or exceptionally if the
+     * plugin was disabled before the message could be sent
+     */
+    @NotNull
+    public static CompletableFuture<Void> broadcast(@NotNull Plugin plugin, @NotNull LanguageManager.Text text,
+                                                    @NotNull Collection<? extends Player> recipients,
+                                                    @NotNull ChatMessageType type) {
+        List<Player> players = new ArrayList<>(recipients);
+        Map<LanguageManager.PreparedText, Integer> indexByPrepared = new HashMap<>();
+        List<LanguageManager.PreparedText> distinct = new ArrayList<>();
+        int[] messageIndexByPlayer = new int[players.size()];
+
+        for (int i = 0; i < players.size(); i++) {
+            LanguageManager.PreparedText prepared = text.prepare(players.get(i));
+            Integer index = indexByPrepared.get(prepared);
+            if (index == null) {
+                index = distinct.size();
+                indexByPrepared.put(prepared, index);
+                distinct.add(prepared);
+            }
+            messageIndexByPlayer[i] = index;
+        }
+
+        if (distinct.size() < PARALLEL_RENDER_THRESHOLD) {
+            send(players, messageIndexByPlayer, render(distinct, type, false), type);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ForkJoinPool.commonPool().execute(() -> {
+            Object[] messages;
+            try {
+                messages = render(distinct, type, true);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+                return;
+            }
+
+            if (!plugin.isEnabled()) {
+                future.completeExceptionally(new IllegalStateException(plugin.getName() + " is disabled"));
+                return;
+            }
+            try {
+                plugin.getServer().getScheduler().runTask(plugin, () -> {
+                    try {
+                        send(players, messageIndexByPlayer, messages, type);
+                        future.complete(null);
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+            } catch (Throwable e) {
+                // The plugin was disabled while rendering
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Renders the prepared texts into chat strings, or into prepared messages for other message types.
+     */
+    @NotNull
+    private static Object[] render(@NotNull List<LanguageManager.PreparedText> prepared, @NotNull ChatMessageType type,
+                                   boolean parallel) {
+        Object[] messages = new Object[prepared.size()];
+        IntStream indices = IntStream.range(0, messages.length);
+        if (parallel) indices = indices.parallel();
+        indices.forEach(i -> {
+            String rendered = prepared.get(i).render();
+            messages[i] = type == ChatMessageType.CHAT ? rendered : PreparedMessage.parse(rendered);
+        });
+        return messages;
+    }
+
+    /**
+     * Sends the rendered messages, action bars through GimmeCore's HUD buffer.
+     */
+    private static void send(@NotNull List<Player> players, @NotNull int[] messageIndexByPlayer,
+                             @NotNull Object[] messages, @NotNull ChatMessageType type) {
+        HudBuffer hudBuffer = type == ChatMessageType.ACTION_BAR
+                ? JavaPlugin.getPlugin(GimmeCore.class).getHudBuffer() : null;
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (!player.isOnline()) continue;
+
+            Object message = messages[messageIndexByPlayer[i]];
+            if (type == ChatMessageType.CHAT) {
+                player.sendMessage((String) message);
+            } else if (hudBuffer != null) {
+                hudBuffer.setActionBar(player, (PreparedMessage) message, HudBuffer.PRIORITY_NORMAL);
+            } else {
+                ((PreparedMessage) message).send(player, type);
+            }
         }
     }
 
@@ -39,28 +231,21 @@ public class Chat {
     public static void sendProgressBar(@NotNull Plugin plugin, @Nullable Chat.StopCondition stopCondition,
                                        @NotNull Iterable<? extends Player> players, int durationTicks,
                                        @Nullable String title, @NotNull BarColor color, @NotNull BarFlag... flags) {
-        BossBar bossBar = Bukkit.createBossBar(title, color, BarStyle.SOLID, flags);
-
-        for (Player player : players) {
-            bossBar.addPlayer(player);
-        }
-
-        new BukkitRunnable() {
-            int ticks = durationTicks;
-
-            @Override
-            public void run() {
-                if (ticks <= 0 || (stopCondition != null && stopCondition.shouldStop())) {
-                    bossBar.removeAll();
-                    cancel();
-                    return;
-                }
-
-                bossBar.setProgress((double) ticks / durationTicks);
+        sendProgressBar(plugin, null, stopCondition, players, durationTicks, title, color, flags);
+    }
 
-                ticks--;
-            }
-        }.runTaskTimer(plugin, 0, 1);
+    /**
+     * Shows a progress bar through GimmeCore's boss bar manager, sharing the boss bar with any running progress bar
+     * with the same key.
+     *
+     * @see BossBarManager#show(Plugin, String, StopCondition, Iterable, int, String, BarColor, BarFlag...)
+     */
+    public static void sendProgressBar(@NotNull Plugin plugin, @Nullable String key,
+                                       @Nullable Chat.StopCondition stopCondition,
+                                       @NotNull Iterable<? extends Player> players, int durationTicks,
+                                       @Nullable String title, @NotNull BarColor color, @NotNull BarFlag... flags) {
+        JavaPlugin.getPlugin(GimmeCore.class).getBossBarManager()
+                .show(plugin, key, stopCondition, players, durationTicks, title, color, flags);
     }
 
     public static void broadcastProgressBar(@NotNull Plugin plugin, @Nullable Chat.StopCondition stopCondition,
@@ -69,6 +254,14 @@ public class Chat {
         sendProgressBar(plugin, stopCondition, Bukkit.getServer().getOnlinePlayers(), durationTicks, title, color, flags);
     }
 
+    public static void broadcastProgressBar(@NotNull Plugin plugin, @Nullable String key,
+                                            @Nullable Chat.StopCondition stopCondition, int durationTicks,
+                                            @Nullable String title, @NotNull BarColor color,
+                                            @NotNull BarFlag... flags) {
+        sendProgressBar(plugin, key, stopCondition, Bukkit.getServer().getOnlinePlayers(), durationTicks, title, color,
+                flags);
+    }
+
     public interface StopCondition {
         boolean shouldStop();
     }
@@ -0,0 +1,255 @@
+package me.gimme.gimmecore.chat;
+
+import net.md_5.bungee.api.ChatMessageType;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Buffers writes to every player's action bar and title, so that each player receives at most one action bar and one
+ * title per tick, no matter how many plugins and tasks write to them.
+ * <p>
+ * During a tick, a write replaces any earlier write to the same channel with the same or lower priority, and once per
+ * tick only the final value is sent. A value that is equal to the previously sent value is not sent again while that
+ * value is still visible on the player's screen.
+ */
+public class HudBuffer implements Listener {
+
+    public static final int PRIORITY_LOW = -100;
+    public static final int PRIORITY_NORMAL = 0;
+    public static final int PRIORITY_HIGH = 100;
+
+    private static final int ACTION_BAR_VISIBLE_TICKS = 40;
+
+    private Plugin plugin;
+    private Server server;
+
+    private long currentTick = 0;
+    private Map<UUID, PlayerHud> hudByPlayer = new HashMap<>();
+    private Set<UUID> pendingPlayers = new LinkedHashSet<>();
+
+    public HudBuffer(@NotNull Plugin plugin) {
+        this.plugin = plugin;
+        this.server = plugin.getServer();
+    }
+
+    /**
+     * Starts the task that flushes the buffered writes once per tick.
+     *
+     * @return this
+     */
+    @NotNull
+    public HudBuffer start() {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                flush();
+                currentTick++;
+            }
+        }.runTaskTimer(plugin, 1, 1);
+        return this;
+    }
+
+    /**
+     * Sets the action bar of a player, to be sent at the end of the tick.
+     *
+     * @param player   the player to set the action bar of
+     * @param text     the action bar text, or an empty string to hide the action bar
+     * @param priority the priority of the write, a write with a lower priority than an earlier write during the same
+     *                 tick is ignored
+     */
+    public void setActionBar(@NotNull Player player, @NotNull String text, int priority) {
+        write(player, Channel.ACTION_BAR, new HudValue(text, null, 0, 0, 0), priority);
+    }
+
+    /**
+     * Sets the action bar of a player to a prepared message, to be sent at the end of the tick. The components of the
+     * message are sent as they are, so that a message set for many players is only parsed once.
+     *
+     * @param player   the player to set the action bar of
+     * @param message  the prepared action bar message
+     * @param priority the priority of the write, a write with a lower priority than an earlier write during the same
+     *                 tick is ignored
+     */
+    public void setActionBar(@NotNull Player player, @NotNull PreparedMessage message, int priority) {
+        write(player, Channel.ACTION_BAR, new HudValue(message), priority);
+    }
+
+    /**
+     * Sets the title of a player, to be sent at the end of the tick.
+     *
+     * @param player   the player to set the title of
+     * @param title    the title text, or null for no title
+     * @param subtitle the subtitle text, or null for no subtitle
+     * @param fadeIn   the fade in time in ticks
+     * @param stay     the stay time in ticks
+     * @param fadeOut  the fade out time in ticks
+     * @param priority the priority of the write, a write with a lower priority than an earlier write during the same
+     *                 tick is ignored
+     */
+    public void setTitle(@NotNull Player player, @Nullable String title, @Nullable String subtitle, int fadeIn,
+                         int stay, int fadeOut, int priority) {
+        write(player, Channel.TITLE, new HudValue(title, subtitle, fadeIn, stay, fadeOut), priority);
+    }
+
+    /**
+     * Resets the title of a player at the end of the tick.
+     *
+     * @param player   the player to reset the title of
+     * @param priority the priority of the write, a write with a lower priority than an earlier write during the same
+     *                 tick is ignored
+     */
+    public void resetTitle(@NotNull Player player, int priority) {
+        write(player, Channel.TITLE, HudValue.RESET, priority);
+    }
+
+    private void write(@NotNull Player player, @NotNull Channel channel, @NotNull HudValue value, int priority) {
+        PlayerHud hud = hudByPlayer.computeIfAbsent(player.getUniqueId(), k -> new PlayerHud());
+        ChannelState state = hud.states[channel.ordinal()];
+
+        if (state.pending != null && priority < state.pendingPriority) return;
+        state.pending = value;
+        state.pendingPriority = priority;
+        pendingPlayers.add(player.getUniqueId());
+    }
+
+    private void flush() {
+        if (pendingPlayers.isEmpty()) return;
+
+        for (UUID playerId : pendingPlayers) {
+            PlayerHud hud = hudByPlayer.get(playerId);
+            Player player = server.getPlayer(playerId);
+            if (hud == null) continue;
+
+            for (Channel channel : Channel.values()) {
+                ChannelState state = hud.states[channel.ordinal()];
+                HudValue value = state.pending;
+                if (value == null) continue;
+                state.pending = null;
+
+                if (player == null || !player.isOnline()) continue;
+                if (value.equals(state.sent) && currentTick - state.sentTick < channel.getVisibleTicks(value)) continue;
+
+                channel.send(player, value);
+                state.sent = value;
+                state.sentTick = currentTick;
+            }
+        }
+        pendingPlayers.clear();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onPlayerQuit(PlayerQuitEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+        hudByPlayer.remove(playerId);
+        pendingPlayers.remove(playerId);
+    }
+
+    private enum Channel {
+        ACTION_BAR {
+            @Override
+            void send(@NotNull Player player, @NotNull HudValue value) {
+                PreparedMessage message = value.message != null ? value.message : PreparedMessage.parse(value.text);
+                message.send(player, ChatMessageType.ACTION_BAR);
+            }
+
+            @Override
+            int getVisibleTicks(@NotNull HudValue value) {
+                return ACTION_BAR_VISIBLE_TICKS;
+            }
+        },
+        TITLE {
+            @Override
+            void send(@NotNull Player player, @NotNull HudValue value) {
+                if (value == HudValue.RESET) player.resetTitle();
+                else player.sendTitle(value.text, value.subtext, value.fadeIn, value.stay, value.fadeOut);
+            }
+
+            @Override
+            int getVisibleTicks(@NotNull HudValue value) {
+                return value == HudValue.RESET ? Integer.MAX_VALUE : value.fadeIn + value.stay;
+            }
+        };
+
+        abstract void send(@NotNull Player player, @NotNull HudValue value);
+
+        /**
+         * Returns for how many ticks after being sent the value is still visible, and does not need to be resent.
+         */
+        abstract int getVisibleTicks(@NotNull HudValue value);
+    }
+
+    private static class HudValue {
+        private static final HudValue RESET = new HudValue(null, null, 0, 0, 0);
+
+        private final String text;
+        private final String subtext;
+        private final int fadeIn;
+        private final int stay;
+        private final int fadeOut;
+        private final PreparedMessage message;
+
+        private HudValue(@Nullable String text, @Nullable String subtext, int fadeIn, int stay, int fadeOut) {
+            this.text = text;
+            this.subtext = subtext;
+            this.fadeIn = fadeIn;
+            this.stay = stay;
+            this.fadeOut = fadeOut;
+            this.message = null;
+        }
+
+        /**
+         * An action bar value that is sent with the components of the prepared message, and is equal to a value with
+         * the same text.
+         */
+        private HudValue(@NotNull PreparedMessage message) {
+            this.text = message.getText();
+            this.subtext = null;
+            this.fadeIn = 0;
+            this.stay = 0;
+            this.fadeOut = 0;
+            this.message = message;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass() || this == RESET || o == RESET) return false;
+            HudValue that = (HudValue) o;
+            return fadeIn == that.fadeIn && stay == that.stay && fadeOut == that.fadeOut &&
+                    Objects.equals(text, that.text) && Objects.equals(subtext, that.subtext);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, subtext, fadeIn, stay, fadeOut);
+        }
+    }
+
+    private static class ChannelState {
+        private HudValue pending;
+        private int pendingPriority;
+        private HudValue sent;
+        private long sentTick;
+    }
+
+    private static class PlayerHud {
+        private ChannelState[] states = new ChannelState[Channel.values().length];
+
+        private PlayerHud() {
+            for (int i = 0; i < states.length; i++) {
+                states[i] = new ChannelState();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package me.gimme.gimmecore.chat;
+
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A legacy color-coded text parsed into chat components once, so that the same components can be sent to any number
+ * of players. Messages prepared with {@link #of(String)} are cached by content, so repeatedly preparing the same text
+ * (such as a broadcast action bar) does not parse it again. Text that is only sent to a single player, such as a
+ * per-player action bar, should be prepared with {@link #parse(String)} instead, so that it does not evict the
+ * broadcast messages from the cache.
+ * <p>
+ * The components are shared and must not be modified.
+ */
+public final class PreparedMessage {
+
+    private static final int MAX_CACHED_MESSAGES = 256;
+
+    private static final Map<String, PreparedMessage> cache = Collections.synchronizedMap(
+            new LinkedHashMap<String, PreparedMessage>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedMessage> eldest) {
+                    return size() > MAX_CACHED_MESSAGES;
+                }
+            });
+
+    private final String text;
+    private final BaseComponent[] components;
+
+    private PreparedMessage(@NotNull String text) {
+        this.text = text;
+
+        BaseComponent[] parsed = TextComponent.fromLegacyText(text);
+        this.components = parsed.length > 0 ? parsed : new BaseComponent[]{new TextComponent("")};
+    }
+
+    /**
+     * Returns the prepared message of the specified text, from the cache if it has been prepared recently.
+     *
+     * @param text the legacy color-coded text
+     * @return the prepared message
+     */
+    @NotNull
+    public static PreparedMessage of(@NotNull String text) {
+        return cache.computeIfAbsent(text, PreparedMessage::new);
+    }
+
+    /**
+     * Returns a prepared message of the specified text without caching it, for text that is only sent to one player.
+     *
+     * @param text the legacy color-coded text
+     * @return the prepared message
+     */
+    @NotNull
+    public static PreparedMessage parse(@NotNull String text) {
+        PreparedMessage cached = cache.get(text);
+        return cached != null ? cached : new PreparedMessage(text);
+    }
+
+    /**
+     * @return the legacy color-coded text of this message
+     */
+    @NotNull
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return the shared components of this message, which must not be modified
+     */
+    @NotNull
+    public BaseComponent[] getComponents() {
+        return components;
+    }
+
+    /**
+     * Sends this message to a player at the specified position.
+     *
+     * @param player the player to send the message to
+     * @param type   the position of the message
+     */
+    public void send(@NotNull Player player, @NotNull ChatMessageType type) {
+        player.spigot().sendMessage(type, components);
+    }
+
+    /**
+     * Sends this message to every player at the specified position.
+     *
+     * @param players the players to send the message to
+     * @param type    the position of the message
+     */
+    public void send(@NotNull Iterable<? extends Player> players, @NotNull ChatMessageType type) {
+        for (Player player : players) {
+            player.spigot().sendMessage(type, components);
+        }
+    }
+
+}
@@ -3,15 +3,20 @@ package me.gimme.gimmecore.command;
 import com.google.common.base.Strings;
 import lombok.Getter;
 import lombok.Setter;
+import me.gimme.gimmecore.util.IoExecutor;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Base class for commands.
@@ -124,6 +129,37 @@ public abstract class BaseCommand {
     @Nullable
     protected abstract String execute(@NotNull final CommandSender sender, @NotNull final String[] args) throws CommandUsageException;
 
+    /**
+     * Runs blocking work of the command, such as reading files, on the I/O executor, and sends the returned message to
+     * the sender on the main thread when it is done. Meant to be called from {@link #execute(CommandSender, String[])},
+     * which should then return null.
+     *
+     * @param plugin the plugin to send the message with
+     * @param sender the sender of the command
+     * @param work   the work to run, returning the message to send, or null if no message should be sent
+     */
+    protected void executeAsync(@NotNull Plugin plugin, @NotNull CommandSender sender,
+                                @NotNull Callable<String> work) {
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return work.call();
+            } catch (CommandUsageException e) {
+                return e.getMessage();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, IoExecutor.get()).whenComplete((message, e) -> {
+            if (e != null) {
+                plugin.getLogger().severe("Command " + name + " failed: " + e.getCause());
+                message = errorMessage(CommandError.UNKNOWN, null);
+            }
+            if (message == null || !plugin.isEnabled()) return;
+
+            String finalMessage = message;
+            plugin.getServer().getScheduler().runTask(plugin, () -> sender.sendMessage(finalMessage));
+        });
+    }
+
     /**
      * Returns if the sender has permission for this command.
      * Command implementations can override this to provide additional more specific conditions.
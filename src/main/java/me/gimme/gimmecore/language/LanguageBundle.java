@@ -0,0 +1,73 @@
+package me.gimme.gimmecore.language;
+
+import com.google.common.base.Strings;
+import org.bukkit.ChatColor;
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable flat map from language path to compiled message, compiled once from a language config so that looking
+ * up a message never goes through the config sections again.
+ */
+public final class LanguageBundle {
+
+    private final Map<String, MessageTemplate> templateByPath;
+
+    private LanguageBundle(@NotNull Map<String, MessageTemplate> templateByPath) {
+        this.templateByPath = Collections.unmodifiableMap(templateByPath);
+    }
+
+    /**
+     * Compiles every language string in the config (including its defaults, if any) into a bundle.
+     *
+     * @param config          the language config to compile
+     * @param colorCode       the color code to translate, or null or empty to not translate color codes
+     * @param placeholderCode the placeholder code, or null or empty if the strings have no placeholders
+     * @return the compiled bundle
+     */
+    @NotNull
+    public static LanguageBundle compile(@NotNull Configuration config, @Nullable String colorCode,
+                                         @Nullable String placeholderCode) {
+        Set<String> paths = new LinkedHashSet<>(config.getKeys(true));
+        Configuration defaults = config.getDefaults();
+        if (defaults != null) paths.addAll(defaults.getKeys(true));
+
+        Map<String, MessageTemplate> templateByPath = new HashMap<>(paths.size() * 2);
+        for (String path : paths) {
+            Object value = config.get(path);
+            if (value == null || value instanceof ConfigurationSection) continue;
+
+            String text = value.toString();
+            if (!Strings.isNullOrEmpty(colorCode))
+                text = ChatColor.translateAlternateColorCodes(colorCode.charAt(0), text);
+            templateByPath.put(path, MessageTemplate.compile(text, placeholderCode));
+        }
+
+        return new LanguageBundle(templateByPath);
+    }
+
+    /**
+     * @param path the language path
+     * @return the compiled message at the path, or null if the bundle has no message at the path
+     */
+    @Nullable
+    public MessageTemplate get(@NotNull String path) {
+        return templateByPath.get(path);
+    }
+
+    /**
+     * @return the amount of messages in this bundle
+     */
+    public int size() {
+        return templateByPath.size();
+    }
+
+}
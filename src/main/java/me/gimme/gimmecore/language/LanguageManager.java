@@ -2,28 +2,57 @@ package me.gimme.gimmecore.language;
 
 import com.google.common.base.Strings;
 import me.gimme.gimmecore.util.ConfigUtils;
+import me.gimme.gimmecore.util.ConfigWatcher;
+import me.gimme.gimmecore.util.IoExecutor;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class LanguageManager {
 
+    private static final MessageTemplate EMPTY_TEMPLATE = MessageTemplate.compile("", null);
+
+    private Plugin plugin;
     private FileConfiguration languageConfig;
     private String languageFilePath;
     private String colorCode = "&";
     private String placeholderCode = "%";
     private String arraySplitCode = "###";
 
+    private volatile LanguageBundle bundle;
+    private Set<String> missingPaths = ConcurrentHashMap.newKeySet();
+
+    private int maxLoadedLocales = 8;
+    private int localeGeneration = 0;
+    private Map<String, LoadedLocale> loadedLocaleByLocale = new ConcurrentHashMap<>();
+    private Set<String> missingLocales = ConcurrentHashMap.newKeySet();
+    private Set<String> loadingLocales = ConcurrentHashMap.newKeySet();
+    private Map<String, String> fallbackByLocale = new HashMap<>();
+    private Map<String, List<String>> localeChainByLocale = new ConcurrentHashMap<>();
+    private ConfigWatcher configWatcher;
+    private PlaceholderRegistry placeholderRegistry;
+    private Set<String> watchedLocales = new HashSet<>();
+
     public LanguageManager(Plugin plugin) {
         this(plugin, "language.yml");
     }
 
     public LanguageManager(Plugin plugin, String languageFilePath) {
+        this.plugin = plugin;
         this.languageFilePath = languageFilePath;
 
         languageConfig = ConfigUtils.getYamlConfig(plugin, languageFilePath);
+        publish(languageConfig, LanguageBundle.compile(languageConfig, colorCode, placeholderCode));
     }
 
     /**
@@ -33,6 +62,7 @@ public class LanguageManager {
      */
     public void setColorCode(String colorCode) {
         this.colorCode = colorCode;
+        publish(languageConfig, LanguageBundle.compile(languageConfig, colorCode, placeholderCode));
     }
 
     /**
@@ -42,6 +72,7 @@ public class LanguageManager {
      */
     public void setPlaceholderCode(String placeholderCode) {
         this.placeholderCode = placeholderCode;
+        publish(languageConfig, LanguageBundle.compile(languageConfig, colorCode, placeholderCode));
     }
 
     /**
@@ -53,6 +84,105 @@ public class LanguageManager {
         this.arraySplitCode = arraySplitCode;
     }
 
+    /**
+     * Sets the registry to resolve placeholders from when a language string is rendered for a player, typically the
+     * registry shared by all plugins through GimmeCore. Only placeholders that are referenced by the language string
+     * and have not been replaced are resolved.
+     *
+     * @param placeholderRegistry the placeholder registry, or null to not resolve placeholders
+     */
+    public void setPlaceholderRegistry(@Nullable PlaceholderRegistry placeholderRegistry) {
+        this.placeholderRegistry = placeholderRegistry;
+    }
+
+    /**
+     * Sets the maximum amount of locale bundles to keep loaded at once. When exceeded, the least recently used locale
+     * bundle is unloaded, to be loaded again the next time it is needed. The default bundle is never unloaded.
+     *
+     * @param maxLoadedLocales the maximum amount of loaded locale bundles
+     */
+    public synchronized void setMaxLoadedLocales(int maxLoadedLocales) {
+        this.maxLoadedLocales = maxLoadedLocales;
+        evictLocales();
+    }
+
+    /**
+     * Adds a fallback for a locale, to be tried before the locale's language (e.g. "de" for "de_at") and the default
+     * language file. For example, "de_at" could fall back to "de_de".
+     *
+     * @param locale         the locale, e.g. "de_at"
+     * @param fallbackLocale the locale to fall back to, e.g. "de_de"
+     */
+    public void addLocaleFallback(@NotNull String locale, @NotNull String fallbackLocale) {
+        fallbackByLocale.put(locale.toLowerCase(Locale.ROOT), fallbackLocale.toLowerCase(Locale.ROOT));
+        localeChainByLocale.clear();
+    }
+
+    /**
+     * Reloads the language file in the background, with default values from the resource in the plugin's jar. The
+     * current messages stay live until the new bundle has been compiled, and are then replaced all at once.
+     *
+     * @return a future that completes with the new bundle once it has been published
+     */
+    @NotNull
+    public CompletableFuture<LanguageBundle> reload() {
+        String colorCode = this.colorCode;
+        String placeholderCode = this.placeholderCode;
+
+        return CompletableFuture.supplyAsync(() -> {
+            FileConfiguration config = ConfigUtils.reloadConfig(plugin, languageFilePath);
+            LanguageBundle newBundle = LanguageBundle.compile(config, colorCode, placeholderCode);
+            publish(config, newBundle);
+            return newBundle;
+        }, IoExecutor.get());
+    }
+
+    /**
+     * Reloads the language files automatically when they are changed. Changed files are parsed and compiled off the
+     * main thread by the watcher, and the new bundle is then published with a single atomic swap. A file that fails
+     * to parse keeps its previous bundle live.
+     *
+     * @param configWatcher the config watcher of the plugin's data folder
+     */
+    public synchronized void watch(@NotNull ConfigWatcher configWatcher) {
+        this.configWatcher = configWatcher;
+
+        configWatcher.watch(languageFilePath,
+                config -> LanguageBundle.compile(config, colorCode, placeholderCode),
+                this::publish);
+        for (String locale : loadedLocaleByLocale.keySet()) {
+            watchLocale(locale);
+        }
+    }
+
+    private synchronized void watchLocale(@NotNull String locale) {
+        if (configWatcher == null || !watchedLocales.add(locale)) return;
+
+        configWatcher.watch(getLocaleFilePath(locale),
+                config -> LanguageBundle.compile(config, colorCode, placeholderCode),
+                (config, localeBundle) -> putLocaleBundle(locale, localeBundle));
+    }
+
+    /**
+     * Replaces the current bundle with the specified bundle in a single atomic swap.
+     */
+    private synchronized void publish(@NotNull FileConfiguration config, @NotNull LanguageBundle newBundle) {
+        languageConfig = config;
+        bundle = newBundle;
+        missingPaths.clear();
+        localeGeneration++;
+        loadedLocaleByLocale.clear();
+        missingLocales.clear();
+    }
+
+    /**
+     * @return the currently published language bundle
+     */
+    @NotNull
+    public LanguageBundle getBundle() {
+        return bundle;
+    }
+
     /**
      * Gets the language string from the specified language path.
      *
@@ -60,24 +190,255 @@ public class LanguageManager {
      * @return the language string from the specified language path
      */
     public Text get(LanguagePath languagePath) {
-        String text = languageConfig.getString(languagePath.getPath());
-        if (text == null) {
-            Bukkit.getLogger().warning("Path not found in " + languageFilePath + ": \"" + languagePath.getPath() + "\"");
-            text = "";
+        return new Text(languagePath.getPath(), getTemplate(bundle, languagePath.getPath()));
+    }
+
+    /**
+     * Gets the language string from the specified language path in the locale of the specified receiver. Falls back
+     * to the default language file if the receiver is not a player or if no language file has the path for the
+     * receiver's locale.
+     *
+     * @param receiver     the receiver of the language string
+     * @param languagePath the path to the language string
+     * @return the language string from the specified language path
+     */
+    @NotNull
+    public Text get(@NotNull CommandSender receiver, @NotNull LanguagePath languagePath) {
+        if (!(receiver instanceof Player)) return get(languagePath);
+        return get(((Player) receiver).getLocale(), languagePath);
+    }
+
+    /**
+     * Gets the language string from the specified language path in the specified locale. The locale's language file
+     * is named like the default language file with the locale appended, e.g. "language_de_de.yml", and is loaded in
+     * the background the first time it is needed; until it has been loaded, the fallback locales are used.
+     *
+     * @param locale       the locale, e.g. "de_de", or null for the default language file
+     * @param languagePath the path to the language string
+     * @return the language string from the specified language path
+     */
+    @NotNull
+    public Text get(@Nullable String locale, @NotNull LanguagePath languagePath) {
+        return new Text(languagePath.getPath(), getTemplate(locale, languagePath.getPath()));
+    }
+
+    @NotNull
+    private MessageTemplate getTemplate(@Nullable String locale, @NotNull String path) {
+        LanguageBundle defaultBundle = bundle;
+        if (locale == null || locale.isEmpty()) return getTemplate(defaultBundle, path);
+
+        for (String l : getLocaleChain(locale)) {
+            LanguageBundle localeBundle = getLocaleBundle(l);
+            if (localeBundle == null) continue;
+
+            MessageTemplate template = localeBundle.get(path);
+            if (template != null) return template;
+        }
+        return getTemplate(defaultBundle, path);
+    }
+
+    /**
+     * Returns the locales to try for the specified locale, in order. For example, "de_at" with a fallback to "de_de"
+     * gives "de_at", "de_de", "de".
+     */
+    @NotNull
+    private List<String> getLocaleChain(@NotNull String locale) {
+        return localeChainByLocale.computeIfAbsent(locale, k -> {
+            List<String> chain = new ArrayList<>();
+            String l = k.toLowerCase(Locale.ROOT);
+            while (l != null && !chain.contains(l)) {
+                chain.add(l);
+                l = fallbackByLocale.get(l);
+            }
+
+            for (String l2 : new ArrayList<>(chain)) {
+                int separator = l2.indexOf('_');
+                if (separator > 0 && !chain.contains(l2.substring(0, separator)))
+                    chain.add(l2.substring(0, separator));
+            }
+            return Collections.unmodifiableList(chain);
+        });
+    }
+
+    /**
+     * Returns the bundle of the specified locale without blocking, and starts loading it in the background if it has
+     * not been loaded yet.
+     *
+     * @return the bundle of the locale, or null if there is no language file for the locale or it is still loading
+     */
+    @Nullable
+    private LanguageBundle getLocaleBundle(@NotNull String locale) {
+        LoadedLocale loadedLocale = loadedLocaleByLocale.get(locale);
+        if (loadedLocale != null) {
+            loadedLocale.lastUsed = System.nanoTime();
+            return loadedLocale.bundle;
+        }
+
+        if (!missingLocales.contains(locale) && loadingLocales.add(locale)) loadLocale(locale);
+        return null;
+    }
+
+    private synchronized void loadLocale(@NotNull String locale) {
+        int generation = localeGeneration;
+        String colorCode = this.colorCode;
+        String placeholderCode = this.placeholderCode;
+
+        CompletableFuture.runAsync(() -> {
+            String filePath = getLocaleFilePath(locale);
+            LanguageBundle localeBundle = null;
+            if (new File(plugin.getDataFolder(), filePath).isFile() || plugin.getResource(filePath) != null) {
+                localeBundle = LanguageBundle.compile(ConfigUtils.getYamlConfig(plugin, filePath), colorCode,
+                        placeholderCode);
+            }
+
+            synchronized (this) {
+                // Discard bundles compiled from a language file that has since been reloaded
+                if (generation != localeGeneration) return;
+                if (localeBundle == null) missingLocales.add(locale);
+                else putLocaleBundle(locale, localeBundle);
+            }
+        }, IoExecutor.get()).whenComplete((v, e) -> {
+            if (e != null) {
+                missingLocales.add(locale);
+                Bukkit.getLogger().warning("Could not load " + getLocaleFilePath(locale) + ": " + e.getMessage());
+            }
+            loadingLocales.remove(locale);
+        });
+    }
+
+    private synchronized void putLocaleBundle(@NotNull String locale, @NotNull LanguageBundle localeBundle) {
+        missingLocales.remove(locale);
+        loadedLocaleByLocale.put(locale, new LoadedLocale(localeBundle));
+        evictLocales();
+        watchLocale(locale);
+    }
+
+    /**
+     * Unloads the least recently used locale bundles until there are no more than the maximum.
+     */
+    private synchronized void evictLocales() {
+        while (loadedLocaleByLocale.size() > maxLoadedLocales) {
+            String leastRecentlyUsed = null;
+            long oldest = Long.MAX_VALUE;
+            for (Map.Entry<String, LoadedLocale> entry : loadedLocaleByLocale.entrySet()) {
+                if (leastRecentlyUsed == null || entry.getValue().lastUsed - oldest < 0) {
+                    leastRecentlyUsed = entry.getKey();
+                    oldest = entry.getValue().lastUsed;
+                }
+            }
+            loadedLocaleByLocale.remove(leastRecentlyUsed);
+        }
+    }
+
+    @NotNull
+    private String getLocaleFilePath(@NotNull String locale) {
+        int extensionIndex = languageFilePath.lastIndexOf('.');
+        if (extensionIndex <= languageFilePath.lastIndexOf('/')) return languageFilePath + "_" + locale;
+        return languageFilePath.substring(0, extensionIndex) + "_" + locale + languageFilePath.substring(extensionIndex);
+    }
+
+    /**
+     * Returns a pre-resolved handle to the language string at the specified path. Getting the language string from the
+     * handle skips the path lookup for as long as the bundle has not been reloaded.
+     *
+     * @param languagePath the path to the language string
+     * @return a handle to the language string
+     */
+    @NotNull
+    public Handle handle(@NotNull LanguagePath languagePath) {
+        return new Handle(languagePath.getPath());
+    }
+
+    @NotNull
+    private MessageTemplate getTemplate(@NotNull LanguageBundle bundle, @NotNull String path) {
+        MessageTemplate template = bundle.get(path);
+        if (template != null) return template;
+
+        if (missingPaths.add(path))
+            Bukkit.getLogger().warning("Path not found in " + languageFilePath + ": \"" + path + "\"");
+        return EMPTY_TEMPLATE;
+    }
+
+    /**
+     * A language path resolved against the current bundle, re-resolved only when another bundle has been published.
+     */
+    public class Handle {
+        private final String path;
+        private Resolved resolved;
+
+        private Handle(@NotNull String path) {
+            this.path = path;
+        }
+
+        /**
+         * @return the language string of this handle
+         */
+        @NotNull
+        public Text get() {
+            LanguageBundle currentBundle = bundle;
+            Resolved resolved = this.resolved;
+            if (resolved == null || resolved.bundle != currentBundle) {
+                resolved = new Resolved(currentBundle, getTemplate(currentBundle, path));
+                this.resolved = resolved;
+            }
+            return new Text(path, resolved.template);
+        }
+
+        /**
+         * @param receiver the receiver of the language string
+         * @return the language string of this handle in the locale of the receiver
+         * @see #get(CommandSender, LanguagePath)
+         */
+        @NotNull
+        public Text get(@NotNull CommandSender receiver) {
+            if (!(receiver instanceof Player)) return get();
+            return new Text(path, getTemplate(((Player) receiver).getLocale(), path));
+        }
+    }
+
+    private static class LoadedLocale {
+        private final LanguageBundle bundle;
+        private volatile long lastUsed = System.nanoTime();
+
+        private LoadedLocale(@NotNull LanguageBundle bundle) {
+            this.bundle = bundle;
+        }
+    }
+
+    private static class Resolved {
+        private final LanguageBundle bundle;
+        private final MessageTemplate template;
+
+        private Resolved(@NotNull LanguageBundle bundle, @NotNull MessageTemplate template) {
+            this.bundle = bundle;
+            this.template = template;
         }
-        return new Text(text);
     }
 
     /**
      * Result class that represents the language string and can replace placeholders.
+     * <p>
+     * Replacements are only bound to the placeholders of the precompiled template, the string is rendered once with
+     * all replacements when it is first needed.
      */
     public class Text {
+        private String path;
+        private MessageTemplate template;
+        private Map<String, String> replacements;
         private String text;
 
         protected Text(@NotNull String text) {
-            if (!Strings.isNullOrEmpty(colorCode))
-                text = ChatColor.translateAlternateColorCodes(colorCode.charAt(0), text);
-            this.text = text;
+            this(MessageTemplate.compile(Strings.isNullOrEmpty(colorCode) ? text :
+                    ChatColor.translateAlternateColorCodes(colorCode.charAt(0), text), placeholderCode));
+        }
+
+        protected Text(@NotNull MessageTemplate template) {
+            this(null, template);
+        }
+
+        private Text(@Nullable String path, @NotNull MessageTemplate template) {
+            this.path = path;
+            this.template = template;
         }
 
         /**
@@ -89,19 +450,123 @@ public class LanguageManager {
          */
         @NotNull
         public Text replace(@NotNull PlaceholderString placeholder, String replacement) {
-            if (!Strings.isNullOrEmpty(placeholderCode))
-                text = text.replaceAll(placeholderCode + placeholder.getPlaceholder() + placeholderCode, replacement);
+            if (replacements == null) replacements = new HashMap<>();
+            replacements.put(placeholder.getPlaceholder(), String.valueOf(replacement));
+            text = null;
+            return this;
+        }
+
+        /**
+         * Replaces every placeholder string in the map with its replacement.
+         *
+         * @param replacements the replacements by placeholder string
+         * @return this, for chaining
+         */
+        @NotNull
+        public Text replace(@NotNull Map<? extends PlaceholderString, String> replacements) {
+            for (Map.Entry<? extends PlaceholderString, String> entry : replacements.entrySet()) {
+                replace(entry.getKey(), entry.getValue());
+            }
             return this;
         }
 
         @Override
         public String toString() {
+            if (text == null) text = template.render(bind(template));
             return text;
         }
 
+        /**
+         * Renders the language string for a player, in the player's locale, resolving any placeholders that have not
+         * been replaced from the language manager's placeholder registry.
+         *
+         * @param player the player to render the language string for
+         * @return the rendered language string
+         */
+        @NotNull
+        public String toString(@NotNull Player player) {
+            return prepare(player).render();
+        }
+
+        /**
+         * Snapshots everything needed to render the language string for a player: the template in the player's
+         * locale, the replacements and the resolved placeholder values. Must be called on the main thread, but the
+         * returned snapshot can be rendered on any thread.
+         *
+         * @param player the player to render the language string for
+         * @return the snapshot to render
+         */
+        @NotNull
+        public PreparedText prepare(@NotNull Player player) {
+            MessageTemplate t = path != null ? getTemplate(player.getLocale(), path) : template;
+            String[] values = bind(t);
+
+            PlaceholderRegistry registry = placeholderRegistry;
+            if (registry != null) {
+                for (int i = 0; i < t.getPlaceholderCount(); i++) {
+                    if (values != null && values[i] != null) continue;
+
+                    String value = registry.resolve(t.getPlaceholder(i), player);
+                    if (value == null) continue;
+                    if (values == null) values = new String[t.getPlaceholderCount()];
+                    values[i] = value;
+                }
+            }
+            return new PreparedText(t, values);
+        }
+
+        /**
+         * Returns the replacements indexed like the placeholder segments of the specified template.
+         */
+        @Nullable
+        private String[] bind(@NotNull MessageTemplate template) {
+            if (replacements == null || template.getPlaceholderCount() == 0) return null;
+
+            String[] values = new String[template.getPlaceholderCount()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = replacements.get(template.getPlaceholder(i));
+            }
+            return values;
+        }
+
         @NotNull
         public String[] toStringArray() {
-            return text.split(arraySplitCode);
+            return MessageTemplate.split(toString(), arraySplitCode);
+        }
+    }
+
+    /**
+     * An immutable snapshot of a language string ready to be rendered for a specific receiver on any thread. Equal
+     * snapshots render to equal strings, so receivers with equal snapshots can share the rendered string.
+     */
+    public static final class PreparedText {
+        private final MessageTemplate template;
+        private final String[] values;
+
+        private PreparedText(@NotNull MessageTemplate template, @Nullable String[] values) {
+            this.template = template;
+            this.values = values;
+        }
+
+        /**
+         * @return the rendered language string
+         */
+        @NotNull
+        public String render() {
+            return template.render(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PreparedText)) return false;
+            PreparedText that = (PreparedText) o;
+            return template == that.template && Arrays.equals(values, that.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(template) + Arrays.hashCode(values);
         }
     }
 
@@ -0,0 +1,186 @@
+package me.gimme.gimmecore.language;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable language string parsed into literal and placeholder segments, so that it can be rendered with all its
+ * placeholders in a single pass without any regular expressions.
+ */
+public final class MessageTemplate {
+
+    private final String[] literals;
+    private final String[] placeholders;
+    private final String placeholderCode;
+    private final int literalsLength;
+
+    private MessageTemplate(@NotNull String[] literals, @NotNull String[] placeholders,
+                            @NotNull String placeholderCode) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.placeholderCode = placeholderCode;
+
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalsLength = length;
+    }
+
+    /**
+     * Parses a string into a template. A placeholder is a non-empty name without whitespace enclosed by the
+     * placeholder code, for example "%player%".
+     *
+     * @param text            the string to parse, with color codes already translated
+     * @param placeholderCode the placeholder code, or null or empty if the string has no placeholders
+     * @return the parsed template
+     */
+    @NotNull
+    public static MessageTemplate compile(@NotNull String text, @Nullable String placeholderCode) {
+        if (placeholderCode == null || placeholderCode.isEmpty())
+            return new MessageTemplate(new String[]{text}, new String[0], "");
+
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int codeLength = placeholderCode.length();
+
+        StringBuilder literal = new StringBuilder();
+        int index = 0;
+        while (index < text.length()) {
+            int start = text.indexOf(placeholderCode, index);
+            if (start < 0) break;
+            int end = text.indexOf(placeholderCode, start + codeLength);
+            if (end < 0) break;
+
+            String name = text.substring(start + codeLength, end);
+            if (isValidName(name)) {
+                literal.append(text, index, start);
+                literals.add(literal.toString());
+                literal.setLength(0);
+                placeholders.add(name);
+                index = end + codeLength;
+            } else {
+                literal.append(text, index, start + codeLength);
+                index = start + codeLength;
+            }
+        }
+        literal.append(text, index, text.length());
+        literals.add(literal.toString());
+
+        return new MessageTemplate(literals.toArray(new String[0]), placeholders.toArray(new String[0]),
+                placeholderCode);
+    }
+
+    private static boolean isValidName(@NotNull String name) {
+        if (name.isEmpty()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.isWhitespace(name.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the amount of placeholder segments in this template
+     */
+    public int getPlaceholderCount() {
+        return placeholders.length;
+    }
+
+    /**
+     * @param index the index of the placeholder segment
+     * @return the name of the placeholder at the index, without the placeholder code
+     */
+    @NotNull
+    public String getPlaceholder(int index) {
+        return placeholders[index];
+    }
+
+    /**
+     * @param placeholder the name of the placeholder, without the placeholder code
+     * @return if this template contains the placeholder
+     */
+    public boolean hasPlaceholder(@NotNull String placeholder) {
+        for (String p : placeholders) {
+            if (p.equals(placeholder)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Renders this template with the specified placeholder values, indexed like the placeholder segments. Placeholders
+     * without a value are rendered as they were written in the language string.
+     *
+     * @param values the values of the placeholder segments, null elements for unbound placeholders
+     * @return the rendered string
+     */
+    @NotNull
+    public String render(@Nullable String[] values) {
+        if (placeholders.length == 0) return literals[0];
+
+        int length = literalsLength;
+        for (int i = 0; i < placeholders.length; i++) {
+            String value = values == null ? null : values[i];
+            length += value != null ? value.length() : placeholders[i].length() + 2 * placeholderCode.length();
+        }
+
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < placeholders.length; i++) {
+            sb.append(literals[i]);
+            String value = values == null ? null : values[i];
+            if (value != null) sb.append(value);
+            else sb.append(placeholderCode).append(placeholders[i]).append(placeholderCode);
+        }
+        sb.append(literals[placeholders.length]);
+        return sb.toString();
+    }
+
+    /**
+     * Splits a rendered string around every occurrence of the split code, without regular expressions. Like
+     * {@link String#split(String)}, trailing empty strings are not included.
+     *
+     * @param text      the string to split
+     * @param splitCode the split code, or null or empty to not split
+     * @return the split strings
+     */
+    @NotNull
+    public static String[] split(@NotNull String text, @Nullable String splitCode) {
+        if (splitCode == null || splitCode.isEmpty() || text.isEmpty()) return new String[]{text};
+
+        List<String> parts = new ArrayList<>();
+        int index = 0;
+        int next;
+        while ((next = text.indexOf(splitCode, index)) >= 0) {
+            parts.add(text.substring(index, next));
+            index = next + splitCode.length();
+        }
+        parts.add(text.substring(index));
+
+        int size = parts.size();
+        while (size > 0 && parts.get(size - 1).isEmpty()) size--;
+        return parts.subList(0, size).toArray(new String[0]);
+    }
+
+    @Override
+    public String toString() {
+        return render(null);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MessageTemplate)) return false;
+        MessageTemplate that = (MessageTemplate) o;
+        return Arrays.equals(literals, that.literals) && Arrays.equals(placeholders, that.placeholders) &&
+                placeholderCode.equals(that.placeholderCode);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(literals) + Arrays.hashCode(placeholders)) + placeholderCode.hashCode();
+    }
+
+}
@@ -0,0 +1,92 @@
+package me.gimme.gimmecore.language;
+
+import me.gimme.gimmecore.manager.RefreshGovernor;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A registry of placeholder resolvers shared between plugins, so that dynamic values like balance, rank and ping are
+ * computed in one place.
+ * <p>
+ * Values are only resolved when a message that references the placeholder is rendered for a player, and are
+ * memoized per player for the rest of the tick, so that each resolver is evaluated at most once per player per tick
+ * no matter how many messages use it. Resolving should only be done on the main thread.
+ */
+public class PlaceholderRegistry {
+
+    private static final String UNRESOLVED = new String("");
+
+    private RefreshGovernor refreshGovernor;
+    private Map<String, PlaceholderResolver> resolverByPlaceholder = new HashMap<>();
+
+    private Map<UUID, Map<String, String>> valuesByPlayer = new HashMap<>();
+    private long memoizedTick = -1;
+
+    /**
+     * @param refreshGovernor the refresh governor whose tick count decides when memoized values expire
+     */
+    public PlaceholderRegistry(@NotNull RefreshGovernor refreshGovernor) {
+        this.refreshGovernor = refreshGovernor;
+    }
+
+    /**
+     * Registers a resolver for a placeholder, replacing any previous resolver of the same placeholder.
+     *
+     * @param placeholder the placeholder to resolve
+     * @param resolver    the resolver of the placeholder's value
+     */
+    public void register(@NotNull PlaceholderString placeholder, @NotNull PlaceholderResolver resolver) {
+        resolverByPlaceholder.put(placeholder.getPlaceholder(), resolver);
+    }
+
+    /**
+     * Unregisters the resolver of a placeholder.
+     *
+     * @param placeholder the placeholder to unregister the resolver of
+     */
+    public void unregister(@NotNull PlaceholderString placeholder) {
+        resolverByPlaceholder.remove(placeholder.getPlaceholder());
+    }
+
+    /**
+     * @param placeholder the name of the placeholder, without the placeholder code
+     * @return if there is a resolver registered for the placeholder
+     */
+    public boolean isRegistered(@NotNull String placeholder) {
+        return resolverByPlaceholder.containsKey(placeholder);
+    }
+
+    /**
+     * Resolves a placeholder for a player, or returns the value already resolved for the player during this tick.
+     *
+     * @param placeholder the name of the placeholder, without the placeholder code
+     * @param player      the player to resolve the placeholder for
+     * @return the value of the placeholder, or null if there is no resolver for it or if the resolver returned null
+     */
+    @Nullable
+    public String resolve(@NotNull String placeholder, @NotNull Player player) {
+        PlaceholderResolver resolver = resolverByPlaceholder.get(placeholder);
+        if (resolver == null) return null;
+
+        long tick = refreshGovernor.getCurrentTick();
+        if (tick != memoizedTick) {
+            valuesByPlayer.clear();
+            memoizedTick = tick;
+        }
+
+        Map<String, String> values = valuesByPlayer.computeIfAbsent(player.getUniqueId(), k -> new HashMap<>());
+        String value = values.get(placeholder);
+        if (value == null) {
+            value = resolver.resolve(player);
+            if (value == null) value = UNRESOLVED;
+            values.put(placeholder, value);
+        }
+        return value == UNRESOLVED ? null : value;
+    }
+
+}
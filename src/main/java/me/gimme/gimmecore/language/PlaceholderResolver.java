@@ -0,0 +1,19 @@
+package me.gimme.gimmecore.language;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Resolves the value of a placeholder for a player, for example the player's balance or rank.
+ */
+public interface PlaceholderResolver {
+
+    /**
+     * @param player the player to resolve the value for
+     * @return the value of the placeholder for the player, or null to leave the placeholder unresolved
+     */
+    @Nullable
+    String resolve(@NotNull Player player);
+
+}
@@ -0,0 +1,109 @@
+package me.gimme.gimmecore.manager;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the duration of server ticks and throttles the refresh rate of cosmetic displays (scoreboards, titles,
+ * boss bars) while the server is falling behind, restoring the normal rates when there is headroom again.
+ * <p>
+ * Only the display refreshes are throttled, anything with a deadline (such as timer callbacks) should keep running at
+ * its normal rate and only ask the governor whether to update its display.
+ */
+public class RefreshGovernor {
+
+    private static final long TARGET_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final double SMOOTHING_FACTOR = 0.05;
+    private static final double THROTTLE_TPS = 18.5;
+    private static final double RESTORE_TPS = 19.5;
+
+    private Plugin plugin;
+
+    private long currentTick = 0;
+    private long lastTickNanos = 0;
+    private double averageTickNanos = TARGET_TICK_NANOS;
+    private boolean throttled = false;
+
+    public RefreshGovernor(@NotNull Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts measuring the tick duration.
+     *
+     * @return this
+     */
+    @NotNull
+    public RefreshGovernor start() {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }.runTaskTimer(plugin, 0, 1);
+        return this;
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        if (lastTickNanos != 0) {
+            averageTickNanos += SMOOTHING_FACTOR * ((now - lastTickNanos) - averageTickNanos);
+
+            double tps = getTps();
+            if (!throttled && tps < THROTTLE_TPS) throttled = true;
+            else if (throttled && tps > RESTORE_TPS) throttled = false;
+        }
+        lastTickNanos = now;
+        currentTick++;
+    }
+
+    /**
+     * @return the amount of ticks since the governor was started
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * @return the smoothed average ticks per second, at most 20
+     */
+    public double getTps() {
+        return Math.min(20, (double) TimeUnit.SECONDS.toNanos(1) / averageTickNanos);
+    }
+
+    /**
+     * @return if cosmetic displays are currently refreshed at their throttled rates
+     */
+    public boolean isThrottled() {
+        return throttled;
+    }
+
+    /**
+     * Returns the refresh period to use right now.
+     *
+     * @param normalPeriod    the refresh period in ticks while the server keeps up
+     * @param throttledPeriod the refresh period in ticks while the server is falling behind
+     * @return the refresh period to use right now
+     */
+    public int getPeriod(int normalPeriod, int throttledPeriod) {
+        return throttled ? throttledPeriod : normalPeriod;
+    }
+
+    /**
+     * Returns if a display that was last refreshed at the specified tick should be refreshed now.
+     *
+     * @param lastRefreshTick the tick the display was last refreshed at (see {@link #getCurrentTick()}), or a negative
+     *                        number if it has never been refreshed
+     * @param normalPeriod    the refresh period in ticks while the server keeps up
+     * @param throttledPeriod the refresh period in ticks while the server is falling behind
+     * @return if the display should be refreshed now
+     */
+    public boolean shouldRefresh(long lastRefreshTick, int normalPeriod, int throttledPeriod) {
+        if (lastRefreshTick < 0) return true;
+        return currentTick - lastRefreshTick >= getPeriod(normalPeriod, throttledPeriod);
+    }
+
+}
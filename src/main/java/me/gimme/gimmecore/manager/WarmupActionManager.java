@@ -1,5 +1,7 @@
 package me.gimme.gimmecore.manager;
 
+import me.gimme.gimmecore.GimmeCore;
+import me.gimme.gimmecore.chat.HudBuffer;
 import org.bukkit.Location;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
@@ -11,6 +13,7 @@ import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.jetbrains.annotations.NotNull;
 
@@ -25,11 +28,25 @@ import java.util.function.Function;
  */
 public class WarmupActionManager implements Listener {
 
+    private static final int TITLE_REFRESH_PERIOD = 20;
+    private static final int THROTTLED_TITLE_REFRESH_PERIOD = 40;
+    private static final int TITLE_FADE_OUT = 10;
+
     private Plugin plugin;
+    private RefreshGovernor refreshGovernor;
+    private HudBuffer hudBuffer;
     private Map<UUID, WarmupActionTask> taskByPlayer = new HashMap<>();
 
     public WarmupActionManager(@NotNull Plugin plugin) {
+        this(plugin, JavaPlugin.getPlugin(GimmeCore.class).getRefreshGovernor(),
+                JavaPlugin.getPlugin(GimmeCore.class).getHudBuffer());
+    }
+
+    public WarmupActionManager(@NotNull Plugin plugin, @NotNull RefreshGovernor refreshGovernor,
+                               @NotNull HudBuffer hudBuffer) {
         this.plugin = plugin;
+        this.refreshGovernor = refreshGovernor;
+        this.hudBuffer = hudBuffer;
     }
 
     /**
@@ -127,6 +144,7 @@ public class WarmupActionManager implements Listener {
         private Location startLocation;
         private Player player;
         private int secondsLeft;
+        private long lastTitleTick = -1;
         private Function<Number, String> timeToCDMessage;
         private Runnable action;
 
@@ -150,8 +168,12 @@ public class WarmupActionManager implements Listener {
 
         @Override
         public void run() {
-            player.sendTitle("", timeToCDMessage.apply(secondsLeft),
-                    0, 25, 10);
+            if (refreshGovernor.shouldRefresh(lastTitleTick, TITLE_REFRESH_PERIOD, THROTTLED_TITLE_REFRESH_PERIOD)) {
+                lastTitleTick = refreshGovernor.getCurrentTick();
+                int stay = refreshGovernor.getPeriod(TITLE_REFRESH_PERIOD, THROTTLED_TITLE_REFRESH_PERIOD) + 5;
+                hudBuffer.setTitle(player, "", timeToCDMessage.apply(secondsLeft), 0, stay, TITLE_FADE_OUT,
+                        HudBuffer.PRIORITY_NORMAL);
+            }
 
             if (secondsLeft-- <= 0) {
                 finish();
@@ -161,7 +183,7 @@ public class WarmupActionManager implements Listener {
         @Override
         public void cancel() {
             super.cancel();
-            player.resetTitle();
+            hudBuffer.resetTitle(player, HudBuffer.PRIORITY_NORMAL);
             taskByPlayer.remove(player.getUniqueId());
         }
 
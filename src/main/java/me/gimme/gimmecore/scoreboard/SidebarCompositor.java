@@ -0,0 +1,294 @@
+package me.gimme.gimmecore.scoreboard;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scoreboard.DisplaySlot;
+import org.bukkit.scoreboard.Objective;
+import org.bukkit.scoreboard.Scoreboard;
+import org.bukkit.scoreboard.Team;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Composes the sidebar of every player's per-player scoreboard out of named sections registered by any number of
+ * plugins.
+ * <p>
+ * Sections are ordered by priority (highest on top) and each section can use at most its line budget. Sections are
+ * only asked for their lines after being marked dirty, and each player's sidebar is flushed at most once per tick,
+ * only sending the lines that changed since the previous flush. The sections of a plugin are unregistered when it is
+ * disabled.
+ */
+public class SidebarCompositor implements Listener {
+
+    public static final int MAX_LINES = 15;
+
+    private static final String OBJECTIVE_SIDEBAR_NAME = "gc_sidebar";
+    private static final String TEAM_NAME_PREFIX = "gc_line_";
+    private static final int MAX_PREFIX_LENGTH = 64;
+
+    private Plugin plugin;
+    private Server server;
+
+    private List<RegisteredSection> sections = new ArrayList<>();
+    private Map<UUID, PlayerSidebar> sidebarByPlayer = new HashMap<>();
+    private Set<UUID> dirtyPlayers = new LinkedHashSet<>();
+
+    public SidebarCompositor(@NotNull Plugin plugin) {
+        this.plugin = plugin;
+        this.server = plugin.getServer();
+    }
+
+    /**
+     * Starts the task that flushes dirty sidebars once per tick, and sets up the sidebar of every online player.
+     *
+     * @return this
+     */
+    @NotNull
+    public SidebarCompositor start() {
+        for (Player player : server.getOnlinePlayers()) {
+            setupSidebar(player);
+        }
+
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }.runTaskTimer(plugin, 1, 1);
+        return this;
+    }
+
+    /**
+     * Registers a section to be shown in the sidebar of every player, until it is unregistered or its owner plugin is
+     * disabled.
+     *
+     * @param owner      the plugin that owns the section
+     * @param name       the unique name of the section, for example "myplugin.timers"
+     * @param priority   the priority of the section, higher priorities are placed higher up in the sidebar
+     * @param lineBudget the maximum amount of lines the section can use
+     * @param section    the provider of the section's lines
+     * @throws IllegalArgumentException if a section with the same name is already registered
+     */
+    public void registerSection(@NotNull Plugin owner, @NotNull String name, int priority, int lineBudget,
+                                @NotNull SidebarSection section) {
+        if (getSection(name) != null) {
+            throw new IllegalArgumentException("A sidebar section named " + name + " is already registered");
+        }
+
+        RegisteredSection registeredSection = new RegisteredSection(owner, name, priority, lineBudget, section);
+        int index = 0;
+        while (index < sections.size() && sections.get(index).priority >= priority) index++;
+        sections.add(index, registeredSection);
+
+        markDirty(name);
+    }
+
+    /**
+     * Unregisters a section and removes its lines from every player's sidebar.
+     *
+     * @param name the name of the section to unregister
+     * @return true if a section with the specified name was registered
+     */
+    public boolean unregisterSection(@NotNull String name) {
+        RegisteredSection section = getSection(name);
+        if (section == null) return false;
+
+        sections.remove(section);
+        for (Map.Entry<UUID, PlayerSidebar> entry : sidebarByPlayer.entrySet()) {
+            entry.getValue().linesBySection.remove(name);
+            dirtyPlayers.add(entry.getKey());
+        }
+        return true;
+    }
+
+    /**
+     * Marks a section as dirty for every online player, to have its lines updated on the next flush.
+     *
+     * @param name the name of the section
+     */
+    public void markDirty(@NotNull String name) {
+        for (Map.Entry<UUID, PlayerSidebar> entry : sidebarByPlayer.entrySet()) {
+            entry.getValue().dirtySections.add(name);
+            dirtyPlayers.add(entry.getKey());
+        }
+    }
+
+    /**
+     * Marks a section as dirty for the specified player, to have its lines updated on the next flush.
+     *
+     * @param name     the name of the section
+     * @param playerId the ID of the player
+     */
+    public void markDirty(@NotNull String name, @NotNull UUID playerId) {
+        PlayerSidebar sidebar = sidebarByPlayer.get(playerId);
+        if (sidebar == null) return;
+
+        sidebar.dirtySections.add(name);
+        dirtyPlayers.add(playerId);
+    }
+
+    /**
+     * Recomposes and sends the sidebar of every player that has any dirty sections.
+     */
+    private void flush() {
+        if (dirtyPlayers.isEmpty()) return;
+
+        for (UUID playerId : dirtyPlayers) {
+            Player player = server.getPlayer(playerId);
+            PlayerSidebar sidebar = sidebarByPlayer.get(playerId);
+            if (player == null || sidebar == null) continue;
+
+            for (String name : sidebar.dirtySections) {
+                RegisteredSection section = getSection(name);
+                if (section == null) continue;
+                sidebar.linesBySection.put(name, section.section.getLines(player));
+            }
+            sidebar.dirtySections.clear();
+
+            render(player, sidebar);
+        }
+        dirtyPlayers.clear();
+    }
+
+    private void render(@NotNull Player player, @NotNull PlayerSidebar sidebar) {
+        List<String> lines = new ArrayList<>();
+        String title = null;
+        for (RegisteredSection section : sections) {
+            List<String> sectionLines = sidebar.linesBySection.get(section.name);
+            if (sectionLines == null || sectionLines.isEmpty()) continue;
+
+            if (title == null) title = section.section.getHeader(player);
+            for (int i = 0; i < sectionLines.size() && i < section.lineBudget && lines.size() < MAX_LINES; i++) {
+                String line = sectionLines.get(i);
+                lines.add(line.length() > MAX_PREFIX_LENGTH ? line.substring(0, MAX_PREFIX_LENGTH) : line);
+            }
+        }
+
+        Scoreboard scoreboard = PerPlayerScoreboardProvider.setupScoreboard(player);
+        Objective objective = scoreboard.getObjective(OBJECTIVE_SIDEBAR_NAME);
+        if (objective == null) {
+            objective = scoreboard.registerNewObjective(OBJECTIVE_SIDEBAR_NAME, "dummy", "");
+            sidebar.renderedLines.clear();
+            sidebar.renderedTitle = null;
+        }
+
+        if (lines.isEmpty()) {
+            if (objective.getDisplaySlot() != null) objective.setDisplaySlot(null);
+        } else if (objective.getDisplaySlot() != DisplaySlot.SIDEBAR) {
+            objective.setDisplaySlot(DisplaySlot.SIDEBAR);
+        }
+
+        if (title == null) title = "";
+        if (!title.equals(sidebar.renderedTitle)) {
+            objective.setDisplayName(title);
+            sidebar.renderedTitle = title;
+        }
+
+        List<String> renderedLines = sidebar.renderedLines;
+        boolean sizeChanged = lines.size() != renderedLines.size();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (i >= renderedLines.size() || !line.equals(renderedLines.get(i))) {
+                getLineTeam(scoreboard, i).setPrefix(line);
+            }
+            if (sizeChanged) objective.getScore(getLineEntry(i)).setScore(lines.size() - i);
+        }
+        for (int i = lines.size(); i < renderedLines.size(); i++) {
+            scoreboard.resetScores(getLineEntry(i));
+        }
+
+        renderedLines.clear();
+        renderedLines.addAll(lines);
+    }
+
+    @NotNull
+    private Team getLineTeam(@NotNull Scoreboard scoreboard, int line) {
+        Team team = scoreboard.getTeam(TEAM_NAME_PREFIX + line);
+        if (team == null) {
+            team = scoreboard.registerNewTeam(TEAM_NAME_PREFIX + line);
+            team.addEntry(getLineEntry(line));
+        }
+        return team;
+    }
+
+    /**
+     * Returns a unique and invisible scoreboard entry for the specified line, the visible text is the team prefix.
+     */
+    @NotNull
+    private static String getLineEntry(int line) {
+        return ChatColor.values()[line].toString() + ChatColor.RESET;
+    }
+
+    @Nullable
+    private RegisteredSection getSection(@NotNull String name) {
+        for (RegisteredSection section : sections) {
+            if (section.name.equals(name)) return section;
+        }
+        return null;
+    }
+
+    private void setupSidebar(@NotNull Player player) {
+        PlayerSidebar sidebar = new PlayerSidebar();
+        for (RegisteredSection section : sections) {
+            sidebar.dirtySections.add(section.name);
+        }
+        sidebarByPlayer.put(player.getUniqueId(), sidebar);
+        dirtyPlayers.add(player.getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    private void onPlayerJoin(PlayerJoinEvent event) {
+        setupSidebar(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onPlayerQuit(PlayerQuitEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+        sidebarByPlayer.remove(playerId);
+        dirtyPlayers.remove(playerId);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onPluginDisable(PluginDisableEvent event) {
+        Plugin owner = event.getPlugin();
+        for (RegisteredSection section : new ArrayList<>(sections)) {
+            if (section.owner == owner) unregisterSection(section.name);
+        }
+    }
+
+    private static class RegisteredSection {
+        private Plugin owner;
+        private String name;
+        private int priority;
+        private int lineBudget;
+        private SidebarSection section;
+
+        private RegisteredSection(@NotNull Plugin owner, @NotNull String name, int priority, int lineBudget,
+                                  @NotNull SidebarSection section) {
+            this.owner = owner;
+            this.name = name;
+            this.priority = priority;
+            this.lineBudget = lineBudget;
+            this.section = section;
+        }
+    }
+
+    private static class PlayerSidebar {
+        private Map<String, List<String>> linesBySection = new HashMap<>();
+        private Set<String> dirtySections = new HashSet<>();
+        private List<String> renderedLines = new ArrayList<>();
+        private String renderedTitle;
+    }
+
+}
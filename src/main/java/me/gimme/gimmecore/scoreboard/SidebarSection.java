@@ -0,0 +1,35 @@
+package me.gimme.gimmecore.scoreboard;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Provides the lines of a named section in the sidebar composed by a {@link SidebarCompositor}.
+ */
+public interface SidebarSection {
+
+    /**
+     * Returns the lines of this section for the specified player, from top to bottom. Only called when the section
+     * has been marked dirty for the player, lines beyond the section's line budget are ignored.
+     *
+     * @param player the player whose sidebar is being composed
+     * @return the lines of this section, or an empty list if the section should not be shown
+     */
+    @NotNull
+    List<String> getLines(@NotNull Player player);
+
+    /**
+     * Returns the sidebar title to use when this is the highest priority section with any lines.
+     *
+     * @param player the player whose sidebar is being composed
+     * @return the sidebar title, or null if this section does not provide one
+     */
+    @Nullable
+    default String getHeader(@NotNull Player player) {
+        return null;
+    }
+
+}
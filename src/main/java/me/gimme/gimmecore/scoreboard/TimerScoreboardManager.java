@@ -1,5 +1,7 @@
 package me.gimme.gimmecore.scoreboard;
 
+import me.gimme.gimmecore.GimmeCore;
+import me.gimme.gimmecore.manager.RefreshGovernor;
 import me.gimme.gimmecore.util.TimeFormat;
 import me.gimme.gimmecore.util.countdown.CountdownTimerTask;
 import org.bukkit.ChatColor;
@@ -10,34 +12,70 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scoreboard.DisplaySlot;
-import org.bukkit.scoreboard.Objective;
-import org.bukkit.scoreboard.Scoreboard;
+import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class TimerScoreboardManager implements Listener {
+/**
+ * Displays countdown timers in the sidebar as a section of a {@link SidebarCompositor}.
+ */
+public class TimerScoreboardManager implements Listener, SidebarSection {
 
     public interface OnFinishCallback {
         void onFinish();
     }
 
-    private static final String OBJECTIVE_TIMERS_NAME = "timers";
+    private static final int REFRESH_PERIOD = 20;
+    private static final AtomicInteger sectionCount = new AtomicInteger();
+    private static final int THROTTLED_REFRESH_PERIOD = 40;
 
     private Plugin plugin;
     private Server server;
     private String header;
+    private SidebarCompositor sidebarCompositor;
+    private RefreshGovernor refreshGovernor;
+    private String sectionName;
 
-    private Map<UUID, Map<String, CountdownTimerTask>> timersByPlayer = new HashMap<>();
+    private Map<UUID, Map<String, ScoreboardTimerTask>> timersByPlayer = new HashMap<>();
     private Map<String, CountdownTimerTask> eventTimersByTitle = new HashMap<>();
     private Map<String, Queue<Player>> playerEventSyncQueueByTitle = new HashMap<>();
 
+    /**
+     * Creates a timer scoreboard manager that displays its timers in GimmeCore's shared sidebar, in a section named
+     * after the specified plugin and numbered, so that a plugin can have several managers.
+     *
+     * @param plugin the plugin that owns the timers
+     * @param header the sidebar title to show while this section is the highest priority section with any lines
+     */
     public TimerScoreboardManager(@NotNull Plugin plugin, String header) {
+        this(plugin, JavaPlugin.getPlugin(GimmeCore.class).getSidebarCompositor(),
+                plugin.getName() + ".timers#" + sectionCount.incrementAndGet(), 0, SidebarCompositor.MAX_LINES, header);
+    }
+
+    /**
+     * Creates a timer scoreboard manager that displays its timers as a section in the specified sidebar compositor.
+     *
+     * @param plugin            the plugin that owns the timers
+     * @param sidebarCompositor the sidebar compositor to register the timers section in
+     * @param sectionName       the unique name of the timers section, which must not already be registered
+     * @param priority          the priority of the timers section in the sidebar
+     * @param lineBudget        the maximum amount of timers to show at once
+     * @param header            the sidebar title to show while this section is the highest priority section with any
+     *                          lines
+     */
+    public TimerScoreboardManager(@NotNull Plugin plugin, @NotNull SidebarCompositor sidebarCompositor,
+                                  @NotNull String sectionName, int priority, int lineBudget, String header) {
         this.plugin = plugin;
         this.server = plugin.getServer();
         this.header = header;
+        this.sidebarCompositor = sidebarCompositor;
+        this.refreshGovernor = JavaPlugin.getPlugin(GimmeCore.class).getRefreshGovernor();
+        this.sectionName = sectionName;
+
+        sidebarCompositor.registerSection(plugin, sectionName, priority, lineBudget, this);
     }
 
     /**
@@ -53,8 +91,9 @@ public class TimerScoreboardManager implements Listener {
     public void startPlayerTimer(@NotNull Player player, @NotNull String title, long duration, int score,
                                  @Nullable TimerScoreboardManager.OnFinishCallback callback) {
         finishPlayerTimer(player, title);
-        timersByPlayer.computeIfAbsent(player.getUniqueId(), k -> new HashMap<>()).put(title, new ScoreboardTimerTask(
-                player.getUniqueId(), title, duration, score, callback).start());
+        ScoreboardTimerTask task = new ScoreboardTimerTask(player.getUniqueId(), title, duration, score, callback);
+        timersByPlayer.computeIfAbsent(player.getUniqueId(), k -> new HashMap<>()).put(title, task);
+        task.start();
     }
 
     /**
@@ -118,50 +157,45 @@ public class TimerScoreboardManager implements Listener {
     }
 
     private void finishPlayerTimer(@NotNull Player player, @NotNull String title) {
-        Map<String, CountdownTimerTask> taskByTitle = timersByPlayer.get(player.getUniqueId());
+        Map<String, ScoreboardTimerTask> taskByTitle = timersByPlayer.get(player.getUniqueId());
         if (taskByTitle == null) return;
         CountdownTimerTask oldTask = taskByTitle.get(title);
         if (oldTask != null) oldTask.finish();
     }
 
     /**
-     * Sets an entry on the specified player's timer scoreboard.
-     * The specified entry is removed and the specified new entry is added.
-     *
-     * @param playerId the ID of the player who's scoreboard to update
-     * @param entry    the previous entry, or null if no previous entry (only adds new entry)
-     * @param newEntry the new entry to set, or null if the entry should just be removed
-     * @param score    the score to set for the entry
+     * Returns the current timers of the specified player, sorted by score with higher scores on top.
      */
-    private void setEntry(@NotNull UUID playerId, @Nullable String entry, @Nullable String newEntry, int score) {
-        Player player = server.getPlayer(playerId);
-        if (player == null) return;
-        Scoreboard scoreboard = player.getScoreboard();
-        Objective objective = scoreboard.getObjective(OBJECTIVE_TIMERS_NAME);
-
-        if (objective == null) return;
-
-        if (entry != null) scoreboard.resetScores(entry);
-        if (newEntry != null) {
-            objective.getScore(newEntry).setScore(score);
-            objective.setDisplaySlot(DisplaySlot.SIDEBAR);
-        } else if (scoreboard.getEntries().isEmpty()) {
-            objective.setDisplaySlot(null);
+    @NotNull
+    @Override
+    public List<String> getLines(@NotNull Player player) {
+        Map<String, ScoreboardTimerTask> taskByTitle = timersByPlayer.get(player.getUniqueId());
+        if (taskByTitle == null || taskByTitle.isEmpty()) return Collections.emptyList();
+
+        List<ScoreboardTimerTask> tasks = new ArrayList<>(taskByTitle.values());
+        tasks.sort(Comparator.comparingInt((ScoreboardTimerTask task) -> task.score).reversed()
+                .thenComparing(task -> task.title));
+
+        List<String> lines = new ArrayList<>(tasks.size());
+        for (ScoreboardTimerTask task : tasks) {
+            if (task.currentScoreName != null) lines.add(task.currentScoreName);
         }
+        return lines;
+    }
+
+    @Nullable
+    @Override
+    public String getHeader(@NotNull Player player) {
+        return header;
     }
 
     /**
-     * Registers the timer display objective and syncs any events that are ongoing
-     * for the player.
+     * Syncs any events that are ongoing for the player.
      */
     @EventHandler(priority = EventPriority.LOW)
     private void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
 
-        Scoreboard scoreboard = PerPlayerScoreboardProvider.setupScoreboard(player);
-        if (scoreboard.getObjective(OBJECTIVE_TIMERS_NAME) == null)
-            scoreboard.registerNewObjective(OBJECTIVE_TIMERS_NAME, "dummy", header);
-
         for (String eventTitle : eventTimersByTitle.keySet()) {
             playerEventSyncQueueByTitle.computeIfAbsent(eventTitle, k -> new ArrayDeque<>()).offer(player);
         }
@@ -171,6 +205,7 @@ public class TimerScoreboardManager implements Listener {
         private UUID player;
         private String title;
         private String currentScoreName;
+        private long lastRefreshTick = -1;
         private int score;
         private OnFinishCallback callback;
 
@@ -183,21 +218,32 @@ public class TimerScoreboardManager implements Listener {
             this.callback = callback;
         }
 
+        /**
+         * Updates the displayed time, at a lower rate while the server is falling behind. The countdown itself and
+         * the finish callback are not affected by the display rate.
+         */
         @Override
         protected void onCount() {
+            if (!refreshGovernor.shouldRefresh(lastRefreshTick, REFRESH_PERIOD, THROTTLED_REFRESH_PERIOD)) return;
+            lastRefreshTick = refreshGovernor.getCurrentTick();
+
             String newScoreName = ChatColor.translateAlternateColorCodes('&', title) +
                     ChatColor.BOLD +
                     TimeFormat.digitalTimeMinimalized(getSeconds());
 
-            setEntry(player, currentScoreName, newScoreName, score);
+            if (newScoreName.equals(currentScoreName)) return;
             currentScoreName = newScoreName;
+            sidebarCompositor.markDirty(sectionName, player);
         }
 
         @Override
         protected void onFinish() {
-            Map<String, CountdownTimerTask> taskByTitle = timersByPlayer.get(player);
-            if (taskByTitle != null) taskByTitle.remove(title);
-            setEntry(player, currentScoreName, null, score);
+            Map<String, ScoreboardTimerTask> taskByTitle = timersByPlayer.get(player);
+            if (taskByTitle != null && taskByTitle.get(title) == this) {
+                taskByTitle.remove(title);
+                if (taskByTitle.isEmpty()) timersByPlayer.remove(player);
+            }
+            sidebarCompositor.markDirty(sectionName, player);
             if (callback != null) callback.onFinish();
         }
     }
@@ -7,6 +7,7 @@ import org.jetbrains.annotations.NotNull;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 
 public class ChatTableBuilder implements TableBuilder {
 
@@ -79,6 +80,21 @@ public class ChatTableBuilder implements TableBuilder {
         return addFormattedRow("", strings);
     }
 
+    /**
+     * Adds a row for each of the specified elements, for example the content of a {@link Pageifier.PageResult}.
+     *
+     * @param elements  the elements to add rows for, in order
+     * @param rowMapper a function that returns the row entry (one string for each column) of an element
+     * @param <E>       the type of the elements
+     * @return this
+     */
+    @Override
+    public <E> ChatTableBuilder addRows(@NotNull Iterable<? extends E> elements,
+                                        @NotNull Function<? super E, String[]> rowMapper) {
+        TableBuilder.super.addRows(elements, rowMapper);
+        return this;
+    }
+
     /**
      * Adds a row to the table with common formatting.
      * For example, this can be used to add a row of column-titles that are all bold and underlined.
@@ -0,0 +1,330 @@
+package me.gimme.gimmecore.util;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Binds config sections to immutable config classes, so that settings are validated and converted once when the
+ * config is loaded, and reading a setting is then a plain field access instead of a path lookup.
+ * <p>
+ * A config class has a constructor whose parameters are all annotated with {@link ConfigKey}, which the binder calls
+ * with the converted settings. Supported parameter types are strings, primitives and their wrappers, enums (matched
+ * case-insensitively, with "-" and spaces as "_"), {@code List}, {@code Set} and {@code Map<String, ?>} of supported
+ * types, and other config classes, which are bound from nested sections. Missing settings are taken from the defaults
+ * of the config. The constructor can throw an {@link IllegalArgumentException} to reject the values it was given.
+ * <p>
+ * How to bind a class is worked out once per class, and all invalid settings are reported together, each with its
+ * full path, in a {@link ConfigBindingException}.
+ *
+ * @param <T> the type of the config class
+ */
+public final class ConfigBinder<T> {
+
+    private static final Map<Class<?>, ConfigBinder<?>> binderByClass = new ConcurrentHashMap<>();
+
+    private Constructor<T> constructor;
+    private String[] keys;
+    private Object[] absentValues;
+    private boolean[] optional;
+    private Converter[] converters;
+
+    /**
+     * Gets the binder of a config class, which is created the first time.
+     *
+     * @param type the config class
+     * @param <T>  the type of the config class
+     * @return the binder of the config class
+     * @throws IllegalArgumentException if the class is not a valid config class
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public static <T> ConfigBinder<T> of(@NotNull Class<T> type) {
+        ConfigBinder<T> binder = (ConfigBinder<T>) binderByClass.get(type);
+        if (binder != null) return binder;
+
+        binder = new ConfigBinder<>(type);
+        ConfigBinder<T> existing = (ConfigBinder<T>) binderByClass.putIfAbsent(type, binder);
+        return existing != null ? existing : binder;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConfigBinder(@NotNull Class<T> type) {
+        for (Constructor<?> candidate : type.getDeclaredConstructors()) {
+            if (candidate.getParameterCount() == 0 || !allAnnotated(candidate.getParameterAnnotations())) continue;
+            if (constructor != null)
+                throw new IllegalArgumentException(type.getName() + " has more than one @ConfigKey constructor");
+            constructor = (Constructor<T>) candidate;
+        }
+        if (constructor == null)
+            throw new IllegalArgumentException(type.getName() + " has no constructor with only @ConfigKey parameters");
+        constructor.setAccessible(true);
+
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        Type[] genericTypes = constructor.getGenericParameterTypes();
+        Annotation[][] annotations = constructor.getParameterAnnotations();
+        keys = new String[parameterTypes.length];
+        absentValues = new Object[parameterTypes.length];
+        optional = new boolean[parameterTypes.length];
+        converters = new Converter[parameterTypes.length];
+
+        for (int i = 0; i < parameterTypes.length; i++) {
+            ConfigKey configKey = findConfigKey(annotations[i]);
+            keys[i] = configKey.value();
+            optional[i] = configKey.optional();
+            absentValues[i] = absentValueOf(parameterTypes[i]);
+            try {
+                converters[i] = converterOf(genericTypes[i]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(type.getName() + " \"" + keys[i] + "\": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Binds a config section, such as a whole loaded config, to a new instance of the config class.
+     *
+     * @param section the section to bind
+     * @return the bound instance
+     * @throws ConfigBindingException if any setting is missing or invalid
+     */
+    @NotNull
+    public T bind(@NotNull ConfigurationSection section) throws ConfigBindingException {
+        List<String> errors = new ArrayList<>();
+        T value = bind(section::get, section.getCurrentPath(), errors);
+        if (value == null) throw new ConfigBindingException(errors);
+        return value;
+    }
+
+    @Nullable
+    private T bind(@NotNull Function<String, Object> source, @Nullable String path, @NotNull List<String> errors) {
+        int previousErrors = errors.size();
+        Object[] arguments = new Object[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            String keyPath = join(path, keys[i]);
+            Object raw = source.apply(keys[i]);
+            if (raw == null) {
+                if (optional[i]) arguments[i] = absentValues[i];
+                else errors.add(keyPath + ": missing required setting");
+                continue;
+            }
+            arguments[i] = converters[i].convert(raw, keyPath, errors);
+        }
+        if (errors.size() > previousErrors) return null;
+
+        try {
+            return constructor.newInstance(arguments);
+        } catch (InvocationTargetException e) {
+            if (!(e.getCause() instanceof IllegalArgumentException)) throw new IllegalStateException(e.getCause());
+            errors.add((path == null || path.isEmpty() ? "(root)" : path) + ": " + e.getCause().getMessage());
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean allAnnotated(@NotNull Annotation[][] parameterAnnotations) {
+        for (Annotation[] annotations : parameterAnnotations) {
+            if (findConfigKey(annotations) == null) return false;
+        }
+        return true;
+    }
+
+    @Nullable
+    private static ConfigKey findConfigKey(@NotNull Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof ConfigKey) return (ConfigKey) annotation;
+        }
+        return null;
+    }
+
+    @Nullable
+    private static Object absentValueOf(@NotNull Class<?> type) {
+        if (!type.isPrimitive()) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        return convertNumber(0L, type);
+    }
+
+    @NotNull
+    private static String join(@Nullable String path, @NotNull String key) {
+        return path == null || path.isEmpty() ? key : path + "." + key;
+    }
+
+    /**
+     * Converts a raw config value, adding an error and returning null if it is invalid.
+     */
+    private interface Converter {
+        @Nullable
+        Object convert(@NotNull Object raw, @NotNull String path, @NotNull List<String> errors);
+    }
+
+    @NotNull
+    private static Converter converterOf(@NotNull Type type) {
+        if (type instanceof ParameterizedType) {
+            Type rawType = ((ParameterizedType) type).getRawType();
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (rawType == List.class) return collectionConverter(converterOf(arguments[0]), false);
+            if (rawType == Set.class) return collectionConverter(converterOf(arguments[0]), true);
+            if (rawType == Map.class && arguments[0] == String.class) return mapConverter(converterOf(arguments[1]));
+        }
+        if (!(type instanceof Class)) throw new IllegalArgumentException("Unsupported type " + type.getTypeName());
+
+        Class<?> clazz = (Class<?>) type;
+        if (clazz == String.class) {
+            return (raw, path, errors) -> {
+                if (raw instanceof String || raw instanceof Number || raw instanceof Boolean) return raw.toString();
+                return error(errors, path, "a string", raw);
+            };
+        }
+        if (clazz == boolean.class || clazz == Boolean.class) {
+            return (raw, path, errors) -> raw instanceof Boolean ? raw : error(errors, path, "true or false", raw);
+        }
+        if (clazz == double.class || clazz == Double.class || clazz == float.class || clazz == Float.class) {
+            boolean isFloat = clazz == float.class || clazz == Float.class;
+            return (raw, path, errors) -> {
+                if (!(raw instanceof Number)) return error(errors, path, "a number", raw);
+                double value = ((Number) raw).doubleValue();
+                return isFloat ? (Object) (float) value : (Object) value;
+            };
+        }
+        if (isIntegral(clazz)) {
+            Class<?> primitive = clazz.isPrimitive() ? clazz : primitiveOf(clazz);
+            long min = convertNumberBound(primitive, true);
+            long max = convertNumberBound(primitive, false);
+            return (raw, path, errors) -> {
+                if (!(raw instanceof Integer || raw instanceof Long || raw instanceof Short || raw instanceof Byte))
+                    return error(errors, path, "a whole number", raw);
+                long value = ((Number) raw).longValue();
+                if (value < min || value > max)
+                    return error(errors, path, "a whole number from " + min + " to " + max, raw);
+                return convertNumber(value, primitive);
+            };
+        }
+        if (clazz.isEnum()) return enumConverter(clazz);
+        if (clazz.isPrimitive() || clazz.isArray() || clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers()))
+            throw new IllegalArgumentException("Unsupported type " + clazz.getName());
+
+        // Another config class, bound lazily so that classes can contain themselves
+        return (raw, path, errors) -> {
+            ConfigBinder<?> binder = of(clazz);
+            if (raw instanceof ConfigurationSection) return binder.bind(((ConfigurationSection) raw)::get, path, errors);
+            if (raw instanceof Map) return binder.bind(((Map<?, ?>) raw)::get, path, errors);
+            return error(errors, path, "a section", raw);
+        };
+    }
+
+    @NotNull
+    private static Converter collectionConverter(@NotNull Converter elementConverter, boolean set) {
+        return (raw, path, errors) -> {
+            if (!(raw instanceof List)) return error(errors, path, "a list", raw);
+            List<?> list = (List<?>) raw;
+            Collection<Object> result = set ? new LinkedHashSet<>() : new ArrayList<>(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                Object element = list.get(i);
+                String elementPath = path + "[" + i + "]";
+                if (element == null) {
+                    errors.add(elementPath + ": missing value");
+                    continue;
+                }
+                result.add(elementConverter.convert(element, elementPath, errors));
+            }
+            return set ? Collections.unmodifiableSet((Set<Object>) result)
+                    : Collections.unmodifiableList((List<Object>) result);
+        };
+    }
+
+    @NotNull
+    private static Converter mapConverter(@NotNull Converter valueConverter) {
+        return (raw, path, errors) -> {
+            Map<String, Object> rawMap = new LinkedHashMap<>();
+            if (raw instanceof ConfigurationSection) {
+                ConfigurationSection section = (ConfigurationSection) raw;
+                for (String key : section.getKeys(false)) {
+                    rawMap.put(key, section.get(key));
+                }
+            } else if (raw instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) raw).entrySet()) {
+                    rawMap.put(String.valueOf(entry.getKey()), entry.getValue());
+                }
+            } else {
+                return error(errors, path, "a section", raw);
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : rawMap.entrySet()) {
+                String entryPath = join(path, entry.getKey());
+                if (entry.getValue() == null) {
+                    errors.add(entryPath + ": missing value");
+                    continue;
+                }
+                result.put(entry.getKey(), valueConverter.convert(entry.getValue(), entryPath, errors));
+            }
+            return Collections.unmodifiableMap(result);
+        };
+    }
+
+    @NotNull
+    private static Converter enumConverter(@NotNull Class<?> enumClass) {
+        Map<String, Object> constantByName = new LinkedHashMap<>();
+        for (Object constant : enumClass.getEnumConstants()) {
+            constantByName.put(((Enum<?>) constant).name().toUpperCase(Locale.ROOT), constant);
+        }
+        String expected = "one of " + constantByName.keySet();
+        return (raw, path, errors) -> {
+            if (!(raw instanceof String)) return error(errors, path, expected, raw);
+            Object constant = constantByName.get(((String) raw).trim().toUpperCase(Locale.ROOT).replace('-', '_')
+                    .replace(' ', '_'));
+            return constant != null ? constant : error(errors, path, expected, raw);
+        };
+    }
+
+    @Nullable
+    private static Object error(@NotNull List<String> errors, @NotNull String path, @NotNull String expected,
+                                @NotNull Object raw) {
+        String actual;
+        if (raw instanceof String) actual = "\"" + raw + "\"";
+        else if (raw instanceof ConfigurationSection || raw instanceof Map) actual = "a section";
+        else if (raw instanceof List) actual = "a list";
+        else actual = raw.toString();
+        errors.add(path + ": expected " + expected + ", but was " + actual);
+        return null;
+    }
+
+    private static boolean isIntegral(@NotNull Class<?> clazz) {
+        return clazz == int.class || clazz == Integer.class || clazz == long.class || clazz == Long.class ||
+                clazz == short.class || clazz == Short.class || clazz == byte.class || clazz == Byte.class;
+    }
+
+    @NotNull
+    private static Class<?> primitiveOf(@NotNull Class<?> wrapper) {
+        if (wrapper == Integer.class) return int.class;
+        if (wrapper == Long.class) return long.class;
+        if (wrapper == Short.class) return short.class;
+        return byte.class;
+    }
+
+    private static long convertNumberBound(@NotNull Class<?> primitive, boolean min) {
+        if (primitive == int.class) return min ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        if (primitive == short.class) return min ? Short.MIN_VALUE : Short.MAX_VALUE;
+        if (primitive == byte.class) return min ? Byte.MIN_VALUE : Byte.MAX_VALUE;
+        return min ? Long.MIN_VALUE : Long.MAX_VALUE;
+    }
+
+    @NotNull
+    private static Object convertNumber(long value, @NotNull Class<?> primitive) {
+        if (primitive == int.class) return (int) value;
+        if (primitive == short.class) return (short) value;
+        if (primitive == byte.class) return (byte) value;
+        if (primitive == double.class) return (double) value;
+        if (primitive == float.class) return (float) value;
+        return value;
+    }
+
+}
@@ -0,0 +1,89 @@
+package me.gimme.gimmecore.util;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * A config file bound to an immutable config class, see {@link ConfigBinder}. Reloading binds a new instance and
+ * swaps it in atomically, so readers always see either the old or the new settings as a whole, and a file with any
+ * invalid setting keeps the previous instance live.
+ *
+ * @param <T> the type of the config class
+ */
+public class ConfigBinding<T> {
+
+    private Plugin plugin;
+    private String filePath;
+    private Class<T> type;
+    private volatile T value;
+
+    /**
+     * @param plugin   the plugin containing the config file and resource
+     * @param filePath the path to the config file, relative to the plugin's data folder, also used as the resource
+     *                 path to get default values from
+     * @param type     the config class to bind the config to
+     */
+    public ConfigBinding(@NotNull Plugin plugin, @NotNull String filePath, @NotNull Class<T> type) {
+        this.plugin = plugin;
+        this.filePath = filePath;
+        this.type = type;
+        ConfigBinder.of(type);
+    }
+
+    /**
+     * Loads and binds the config for the first time.
+     *
+     * @return this
+     * @throws IOException                   if the file could not be read
+     * @throws InvalidConfigurationException if the file is not a valid YAML config, or a {@link ConfigBindingException}
+     *                                       listing every invalid setting
+     */
+    @NotNull
+    public ConfigBinding<T> load() throws IOException, InvalidConfigurationException {
+        value = ConfigUtils.bindConfig(plugin, filePath, type);
+        return this;
+    }
+
+    /**
+     * Reloads and rebinds the config. If the file cannot be read or has any invalid setting, the errors are logged and
+     * the previous instance stays live.
+     *
+     * @return if the new instance was swapped in
+     */
+    public boolean reload() {
+        try {
+            value = ConfigUtils.bindConfig(plugin, filePath, type);
+            return true;
+        } catch (IOException | InvalidConfigurationException e) {
+            plugin.getLogger().severe("Could not reload " + filePath + ", keeping the previous settings: " +
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Rebinds the config automatically when the file is changed. The config is bound on the watcher thread, and the new
+     * instance is swapped in on the main thread.
+     *
+     * @param configWatcher the config watcher of the plugin's data folder
+     */
+    public void watch(@NotNull ConfigWatcher configWatcher) {
+        ConfigBinder<T> binder = ConfigBinder.of(type);
+        configWatcher.watch(filePath, binder::bind, (config, newValue) -> value = newValue);
+    }
+
+    /**
+     * @return the currently bound instance of the config class
+     * @throws IllegalStateException if the config has not been loaded
+     */
+    @NotNull
+    public T get() {
+        T value = this.value;
+        if (value == null) throw new IllegalStateException(filePath + " has not been loaded");
+        return value;
+    }
+
+}
@@ -0,0 +1,34 @@
+package me.gimme.gimmecore.util;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when a config does not match the class it is bound to, with one error per invalid setting.
+ */
+public class ConfigBindingException extends InvalidConfigurationException {
+
+    private List<String> errors;
+
+    /**
+     * @param errors the errors, each starting with the full path of the invalid setting
+     */
+    public ConfigBindingException(@NotNull List<String> errors) {
+        super(errors.size() == 1 ? errors.get(0)
+                : errors.size() + " invalid settings:\n  " + String.join("\n  ", errors));
+        this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+    }
+
+    /**
+     * @return the errors, each starting with the full path of the invalid setting
+     */
+    @NotNull
+    public List<String> getErrors() {
+        return errors;
+    }
+
+}
@@ -0,0 +1,139 @@
+package me.gimme.gimmecore.util;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A process-wide cache of parsed YAML config files, shared by all plugins, so that a file that has not changed since
+ * it was last parsed is never parsed again. Files are compared by a hash of their content rather than by their
+ * modification time, which can miss an edit that keeps the size and lands within the timestamp granularity of the file
+ * system; reading and hashing a file is still much cheaper than parsing it.
+ * <p>
+ * The cached configs are never handed out; every load returns a deep copy that the caller is free to modify, which is
+ * much cheaper than parsing. A file that is requested by several threads at once is only parsed once.
+ */
+final class ConfigCache {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private static final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    private static final Map<Path, CachedConfig> cachedConfigByPath = new ConcurrentHashMap<>();
+
+    private ConfigCache() {
+    }
+
+    /**
+     * @return the pool to parse configs in parallel on
+     */
+    @NotNull
+    static ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Loads the config file at the path, from the cache if it has not changed since it was last parsed.
+     *
+     * @param path the path to the config file
+     * @return a copy of the parsed config
+     * @throws IOException                   if the file could not be read
+     * @throws InvalidConfigurationException if the file is not a valid YAML config
+     */
+    @NotNull
+    static YamlConfiguration load(@NotNull Path path) throws IOException, InvalidConfigurationException {
+        Path key = path.toAbsolutePath().normalize();
+        byte[] bytes = Files.readAllBytes(key);
+        HashCode hash = HASH_FUNCTION.hashBytes(bytes);
+
+        CachedConfig cachedConfig = cachedConfigByPath.compute(key, (k, previous) ->
+                previous != null && previous.hash.equals(hash) ? previous : new CachedConfig(hash));
+
+        if (cachedConfig.parsing.compareAndSet(false, true)) {
+            try {
+                YamlConfiguration config = new YamlConfiguration();
+                config.loadFromString(new String(bytes, StandardCharsets.UTF_8));
+                cachedConfig.future.complete(config);
+            } catch (Throwable e) {
+                cachedConfigByPath.remove(key, cachedConfig);
+                cachedConfig.future.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return copy(cachedConfig.future.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            if (e.getCause() instanceof InvalidConfigurationException)
+                throw (InvalidConfigurationException) e.getCause();
+            throw e;
+        }
+    }
+
+    @NotNull
+    private static YamlConfiguration copy(@NotNull YamlConfiguration config) {
+        YamlConfiguration copy = new YamlConfiguration();
+        copy.options().header(config.options().header());
+        copySection(config, copy);
+        return copy;
+    }
+
+    private static void copySection(@NotNull ConfigurationSection from, @NotNull ConfigurationSection to) {
+        for (String key : from.getKeys(false)) {
+            Object value = from.get(key);
+            if (value instanceof ConfigurationSection) {
+                copySection((ConfigurationSection) value, to.createSection(key));
+            } else {
+                to.set(key, copyValue(value));
+            }
+        }
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), copyValue(entry.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof ConfigurationSerializable) {
+            // Such as item stacks, which are mutable
+            ConfigurationSerializable serializable = (ConfigurationSerializable) value;
+            return ConfigurationSerialization.deserializeObject(serializable.serialize(), serializable.getClass());
+        }
+        return value;
+    }
+
+    private static class CachedConfig {
+        private HashCode hash;
+        private AtomicBoolean parsing = new AtomicBoolean(false);
+        private CompletableFuture<YamlConfiguration> future = new CompletableFuture<>();
+
+        private CachedConfig(@NotNull HashCode hash) {
+            this.hash = hash;
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+package me.gimme.gimmecore.util;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * The structural difference between two versions of a config, as the list of settings that were added, removed or
+ * changed. Sections that exist in both versions are compared key by key, so a one-line edit results in a single
+ * change no matter how large the config is.
+ */
+public final class ConfigDiff {
+
+    /**
+     * A setting that was added, removed or changed.
+     */
+    public static final class Change {
+        private String path;
+        private Object oldValue;
+        private Object newValue;
+
+        private Change(@NotNull String path, @Nullable Object oldValue, @Nullable Object newValue) {
+            this.path = path;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        /**
+         * @return the full path of the setting
+         */
+        @NotNull
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return the old value, or null if the setting was added
+         */
+        @Nullable
+        public Object getOldValue() {
+            return oldValue;
+        }
+
+        /**
+         * @return the new value, or null if the setting was removed
+         */
+        @Nullable
+        public Object getNewValue() {
+            return newValue;
+        }
+
+        @Override
+        public String toString() {
+            return path + ": " + oldValue + " -> " + newValue;
+        }
+    }
+
+    static final ConfigDiff EMPTY = new ConfigDiff(new ArrayList<>());
+
+    private List<Change> changes;
+
+    private ConfigDiff(@NotNull List<Change> changes) {
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Computes the difference between two versions of a config. Settings that are only set in the defaults of a config
+     * are included.
+     *
+     * @param oldSection the old version, or null if there was none
+     * @param newSection the new version
+     * @return the difference
+     */
+    @NotNull
+    public static ConfigDiff between(@Nullable ConfigurationSection oldSection,
+                                     @NotNull ConfigurationSection newSection) {
+        List<Change> changes = new ArrayList<>();
+        compare(oldSection, newSection, "", changes);
+        return new ConfigDiff(changes);
+    }
+
+    private static void compare(@Nullable ConfigurationSection oldSection, @Nullable ConfigurationSection newSection,
+                                @NotNull String path, @NotNull List<Change> changes) {
+        Set<String> keys = new LinkedHashSet<>();
+        addKeys(oldSection, keys);
+        addKeys(newSection, keys);
+
+        for (String key : keys) {
+            String keyPath = path.isEmpty() ? key : path + "." + key;
+            Object oldValue = oldSection == null ? null : oldSection.get(key);
+            Object newValue = newSection == null ? null : newSection.get(key);
+
+            if (oldValue instanceof ConfigurationSection && newValue instanceof ConfigurationSection) {
+                compare((ConfigurationSection) oldValue, (ConfigurationSection) newValue, keyPath, changes);
+            } else if (!Objects.equals(oldValue, newValue)) {
+                changes.add(new Change(keyPath, oldValue, newValue));
+            }
+        }
+    }
+
+    private static void addKeys(@Nullable ConfigurationSection section, @NotNull Set<String> keys) {
+        if (section == null) return;
+        keys.addAll(section.getKeys(false));
+        ConfigurationSection defaults = section.getDefaultSection();
+        if (defaults != null) keys.addAll(defaults.getKeys(false));
+    }
+
+    /**
+     * @return the changed settings, in the order of the config
+     */
+    @NotNull
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    /**
+     * @return if nothing changed
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * @param path the path of a setting or section
+     * @return if the setting, anything inside the section, or any section containing it changed
+     */
+    public boolean affects(@NotNull String path) {
+        for (Change change : changes) {
+            if (path.isEmpty() || isWithin(change.path, path) || isWithin(path, change.path)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return if the path is the parent path or inside of it
+     */
+    static boolean isWithin(@NotNull String path, @NotNull String parentPath) {
+        return path.startsWith(parentPath) &&
+                (path.length() == parentPath.length() || path.charAt(parentPath.length()) == '.');
+    }
+
+    @Override
+    public String toString() {
+        return changes.toString();
+    }
+
+}
@@ -0,0 +1,24 @@
+package me.gimme.gimmecore.util;
+
+import java.lang.annotation.*;
+
+/**
+ * Binds a constructor parameter of a config class to a setting, see {@link ConfigBinder}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface ConfigKey {
+
+    /**
+     * @return the key of the setting in the section the class is bound from, which may be a path like "a.b"
+     */
+    String value();
+
+    /**
+     * @return if the setting may be missing from both the file and its defaults, in which case the parameter is null,
+     * or zero or false for primitives
+     */
+    boolean optional() default false;
+
+}
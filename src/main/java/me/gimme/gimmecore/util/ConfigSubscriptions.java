@@ -0,0 +1,182 @@
+package me.gimme.gimmecore.util;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+
+/**
+ * Change listeners of a config, each subscribed to a path, which are only called when something at or inside that
+ * path changed between two versions of the config, so that consumers only recompute what was affected by a reload.
+ * <p>
+ * A path can contain {@code *} segments that match any key, such as {@code "kits.*"}, in which case the listener is
+ * called once for each matching section that changed (for example only for {@code "kits.warrior"}). Every new version
+ * of the config is handed to {@link #update(ConfigurationSection)}, for example from
+ * {@link ConfigUtils#reloadConfig(Plugin, String, ConfigSubscriptions)} or from a {@link ConfigWatcher}. The version
+ * that is already loaded has to be set as the baseline first, or the first edit is only taken as the baseline:
+ * <pre>{@code
+ * subscriptions.setBaseline(ConfigUtils.reloadConfig(plugin, filePath));
+ * configWatcher.watch(filePath, subscriptions::update);
+ * }</pre>
+ * Updates and listeners run on the calling thread, which should be the main thread.
+ */
+public class ConfigSubscriptions {
+
+    /**
+     * Called when something at or inside a subscribed path changed.
+     */
+    public interface Listener {
+        /**
+         * @param path     the path that changed, with any {@code *} segments replaced by the matching keys
+         * @param oldValue the old value or section at the path, or null if it did not exist
+         * @param newValue the new value or section at the path, or null if it was removed
+         */
+        void onChange(@NotNull String path, @Nullable Object oldValue, @Nullable Object newValue);
+    }
+
+    private Plugin plugin;
+    private List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private ConfigurationSection current;
+
+    /**
+     * @param plugin the plugin to log listener errors with
+     */
+    public ConfigSubscriptions(@NotNull Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Subscribes a listener to changes at or inside a path.
+     *
+     * @param path     the path, which can contain {@code *} segments, or "" for any change
+     * @param listener the listener to call with each changed path
+     */
+    public void subscribe(@NotNull String path, @NotNull Listener listener) {
+        subscriptions.add(new Subscription(path, listener));
+    }
+
+    /**
+     * Unsubscribes a listener from all paths.
+     *
+     * @param listener the listener to unsubscribe
+     */
+    public void unsubscribe(@NotNull Listener listener) {
+        subscriptions.removeIf(subscription -> subscription.listener == listener);
+    }
+
+    /**
+     * @return the current version of the config, or null if there has been no update or baseline
+     */
+    @Nullable
+    public ConfigurationSection getCurrent() {
+        return current;
+    }
+
+    /**
+     * Makes a version of the config current without calling any listeners, such as the version that was loaded before
+     * the config started being watched. Later updates are compared with it.
+     *
+     * @param config the current version of the config
+     */
+    public void setBaseline(@NotNull ConfigurationSection config) {
+        current = config;
+    }
+
+    /**
+     * Makes a new version of the config current, and calls the listeners of the paths that changed since the previous
+     * version. If there is no previous version (see {@link #setBaseline(ConfigurationSection)}), the new version only
+     * becomes current, without calling any listeners.
+     *
+     * @param config the new version of the config
+     * @return the difference from the previous version, which is empty for the first version
+     */
+    @NotNull
+    public ConfigDiff update(@NotNull ConfigurationSection config) {
+        ConfigurationSection previous = current;
+        current = config;
+        if (previous == null) return ConfigDiff.EMPTY;
+
+        ConfigDiff diff = ConfigDiff.between(previous, config);
+        if (diff.isEmpty()) return diff;
+
+        for (Subscription subscription : subscriptions) {
+            Set<String> paths = new LinkedHashSet<>();
+            for (ConfigDiff.Change change : diff.getChanges()) {
+                subscription.collectAffectedPaths(change.getPath(), previous, config, paths);
+            }
+
+            for (String path : paths) {
+                try {
+                    subscription.listener.onChange(path, get(previous, path), get(config, path));
+                } catch (Exception e) {
+                    plugin.getLogger().log(Level.SEVERE, "Config listener of " + subscription.path + " failed", e);
+                }
+            }
+        }
+        return diff;
+    }
+
+    @Nullable
+    private static Object get(@NotNull ConfigurationSection config, @NotNull String path) {
+        return path.isEmpty() ? config : config.get(path);
+    }
+
+    private static class Subscription {
+        private String path;
+        private String[] segments;
+        private Listener listener;
+
+        private Subscription(@NotNull String path, @NotNull Listener listener) {
+            this.path = path;
+            this.segments = path.isEmpty() ? new String[0] : path.split("\\.");
+            this.listener = listener;
+        }
+
+        /**
+         * Adds the paths matching this subscription that are affected by a change at the path.
+         */
+        private void collectAffectedPaths(@NotNull String changedPath, @NotNull ConfigurationSection oldConfig,
+                                          @NotNull ConfigurationSection newConfig, @NotNull Set<String> paths) {
+            String[] changedSegments = changedPath.split("\\.");
+            int common = Math.min(segments.length, changedSegments.length);
+            for (int i = 0; i < common; i++) {
+                if (!segments[i].equals("*") && !segments[i].equals(changedSegments[i])) return;
+            }
+
+            // The change is at or inside a matching path
+            if (changedSegments.length >= segments.length) {
+                paths.add(String.join(".", Arrays.copyOf(changedSegments, segments.length)));
+                return;
+            }
+
+            // A section containing matching paths changed, so every matching path inside it is affected
+            List<String> expanded = Collections.singletonList(changedPath);
+            for (int i = changedSegments.length; i < segments.length; i++) {
+                List<String> next = new ArrayList<>();
+                for (String parent : expanded) {
+                    if (segments[i].equals("*")) {
+                        Set<String> keys = new LinkedHashSet<>();
+                        addKeys(oldConfig.get(parent), keys);
+                        addKeys(newConfig.get(parent), keys);
+                        for (String key : keys) {
+                            next.add(parent + "." + key);
+                        }
+                    } else {
+                        next.add(parent + "." + segments[i]);
+                    }
+                }
+                expanded = next;
+            }
+            paths.addAll(expanded);
+        }
+
+        private static void addKeys(@Nullable Object section, @NotNull Set<String> keys) {
+            if (section instanceof ConfigurationSection) keys.addAll(((ConfigurationSection) section).getKeys(false));
+        }
+    }
+
+}
@@ -2,7 +2,6 @@ package me.gimme.gimmecore.util;
 
 import com.google.common.base.Charsets;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -11,8 +10,14 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
+import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinTask;
 
 public class ConfigUtils {
 
@@ -28,15 +33,50 @@ public class ConfigUtils {
         saveDefaultConfig(plugin, filePath, filePath);
 
         File configFile = new File(plugin.getDataFolder(), filePath);
-        YamlConfiguration config = new YamlConfiguration();
-
         try {
-            config.load(configFile);
+            return ConfigCache.load(configFile.toPath());
         } catch (IOException | InvalidConfigurationException e) {
             e.printStackTrace();
         }
 
-        return config;
+        return new YamlConfiguration();
+    }
+
+    /**
+     * Loads the YAML configs at the specified file paths in parallel, like {@link #getYamlConfig(Plugin, String)}, and
+     * waits for all of them. Meant to be called once in {@code onEnable} with every config file the plugin needs.
+     * <p>
+     * Parsed files are cached for the whole process by a hash of their content, so a file that has already
+     * been loaded by any plugin is copied instead of parsed again. Every returned config is a separate copy.
+     *
+     * @param plugin    the plugin that has the resources with the default configs
+     * @param filePaths the paths to the config files
+     * @return the loaded YAML configs by their file paths, in the order of the file paths
+     */
+    @NotNull
+    public static Map<String, YamlConfiguration> preloadConfigs(@NotNull Plugin plugin, @NotNull String... filePaths) {
+        // Saving resources is not thread-safe, and nearly free when the files exist
+        for (String filePath : filePaths) {
+            saveDefaultConfig(plugin, filePath, filePath);
+        }
+
+        Map<String, ForkJoinTask<YamlConfiguration>> taskByFilePath = new LinkedHashMap<>();
+        for (String filePath : filePaths) {
+            taskByFilePath.put(filePath, ConfigCache.getPool().submit(() -> {
+                try {
+                    return ConfigCache.load(new File(plugin.getDataFolder(), filePath).toPath());
+                } catch (IOException | InvalidConfigurationException e) {
+                    plugin.getLogger().severe("Could not load " + filePath + ": " + e.getMessage());
+                    return new YamlConfiguration();
+                }
+            }));
+        }
+
+        Map<String, YamlConfiguration> configByFilePath = new LinkedHashMap<>();
+        for (Map.Entry<String, ForkJoinTask<YamlConfiguration>> entry : taskByFilePath.entrySet()) {
+            configByFilePath.put(entry.getKey(), entry.getValue().join());
+        }
+        return configByFilePath;
     }
 
     /**
@@ -104,6 +144,95 @@ public class ConfigUtils {
         return newConfig;
     }
 
+    /**
+     * Reloads the config at the specified path, like {@link #reloadConfig(Plugin, String)}, and hands it to the
+     * subscriptions, which calls only the listeners of the paths that changed since the previous version.
+     *
+     * @param plugin        the plugin containing the config file and resource
+     * @param path          the path to the resource config to get default values from, and the path to the file to
+     *                      reload, relative to the plugin's data folder
+     * @param subscriptions the change listeners of the config
+     * @return the reloaded config
+     */
+    public static YamlConfiguration reloadConfig(@NotNull Plugin plugin, @NotNull String path,
+                                                 @NotNull ConfigSubscriptions subscriptions) {
+        YamlConfiguration config = reloadConfig(plugin, path, path);
+        subscriptions.update(config);
+        return config;
+    }
+
+    /**
+     * Loads the config at the specified path, with default values from the resource at the same path, and binds it to
+     * a new instance of the config class, see {@link ConfigBinder}. The default config is saved first if the file does
+     * not exist.
+     *
+     * @param plugin   the plugin containing the config file and resource
+     * @param filePath the path to the file to load, relative to the plugin's data folder
+     * @param type     the config class to bind the config to
+     * @param <T>      the type of the config class
+     * @return the bound instance
+     * @throws IOException                   if the file could not be read
+     * @throws InvalidConfigurationException if the file is not a valid YAML config, or a {@link ConfigBindingException}
+     *                                       listing every invalid setting
+     */
+    @NotNull
+    public static <T> T bindConfig(@NotNull Plugin plugin, @NotNull String filePath, @NotNull Class<T> type)
+            throws IOException, InvalidConfigurationException {
+        saveDefaultConfig(plugin, filePath);
+        return ConfigBinder.of(type).bind(loadConfig(plugin, filePath, filePath));
+    }
+
+    /**
+     * Loads the config at the specified path on the I/O executor, see {@link #loadConfig(Plugin, String, String)}.
+     *
+     * @param plugin       the plugin containing the config file and resource
+     * @param filePath     the path to the file to load, relative to the plugin's data folder
+     * @param resourcePath the path to the resource config to get default values from, or null for no defaults
+     * @return a future with the loaded config, which completes exceptionally if the file could not be read or parsed
+     */
+    @NotNull
+    public static CompletableFuture<YamlConfiguration> loadConfigAsync(@NotNull Plugin plugin, @NotNull String filePath,
+                                                                       @Nullable String resourcePath) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loadConfig(plugin, filePath, resourcePath);
+            } catch (IOException | InvalidConfigurationException e) {
+                throw new CompletionException(e);
+            }
+        }, IoExecutor.get());
+    }
+
+    /**
+     * Loads the config at the specified path with default values from the resource at the specified resource path.
+     * Unlike {@link #reloadConfig(Plugin, String, String)}, any error in the file is thrown instead of resulting in an
+     * empty config, so that the caller can keep using the previous config.
+     *
+     * @param plugin       the plugin containing the config file and resource
+     * @param filePath     the path to the file to load, relative to the plugin's data folder
+     * @param resourcePath the path to the resource config to get default values from, or null for no defaults
+     * @return the loaded config
+     * @throws IOException                   if the file could not be read
+     * @throws InvalidConfigurationException if the file is not a valid YAML config
+     */
+    @NotNull
+    public static YamlConfiguration loadConfig(@NotNull Plugin plugin, @NotNull String filePath,
+                                               @Nullable String resourcePath)
+            throws IOException, InvalidConfigurationException {
+        File file = new File(plugin.getDataFolder(), filePath);
+
+        YamlConfiguration config = new YamlConfiguration();
+        config.loadFromString(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+
+        if (resourcePath != null) {
+            InputStream defConfigStream = plugin.getResource(resourcePath);
+            if (defConfigStream != null)
+                config.setDefaults(YamlConfiguration.loadConfiguration(
+                        new InputStreamReader(defConfigStream, Charsets.UTF_8)));
+        }
+
+        return config;
+    }
+
     /**
      * Serializes and saves the specified object to the json file at the specified file path.
      *
@@ -114,16 +243,13 @@ public class ConfigUtils {
      * @throws IllegalArgumentException if the file path has the wrong extension
      */
     public static void saveToJson(File pluginDataFolder, String filePath, Object object) throws IOException {
-        Gson gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .create();
-
-        saveToJson(pluginDataFolder, filePath, object, gson);
+        saveToJson(pluginDataFolder, filePath, object, JsonFiles.PRETTY_GSON);
     }
 
     /**
      * Serializes and saves the specified object to the json file at the specified file path. The gson can be used to
-     * register type adapters or add other serialization settings.
+     * register type adapters or add other serialization settings. If the file was last saved with exactly the same
+     * content and has not been modified since, it is not written again.
      *
      * @param pluginDataFolder the plugin data folder where the json file should be created
      * @param filePath         the file path of the json file
@@ -140,11 +266,8 @@ public class ConfigUtils {
             filePath += ".json";
         }
 
-        String json = gson.toJson(object);
-
         File jsonFile = new File(pluginDataFolder, filePath);
-        Files.createDirectories(jsonFile.toPath().getParent());
-        Files.write(jsonFile.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        JsonFiles.writeIfChanged(jsonFile.toPath(), object, object == null ? Object.class : object.getClass(), gson);
     }
 
     /**
@@ -155,11 +278,14 @@ public class ConfigUtils {
      * @param <T>              the type of the loaded object
      * @return the loaded object
      * @throws IOException
+     * @deprecated the type argument is erased, so the object is read as generic maps and lists, use
+     * {@link #loadFromJson(File, String, Class)} instead
      */
     @Nullable
+    @Deprecated
     public static <T> T loadFromJson(File pluginDataFolder, String filePath) throws IOException {
-        Gson gson = new GsonBuilder().create();
-        return loadFromJson(pluginDataFolder, filePath, gson);
+        return loadFromJson(pluginDataFolder, filePath, new TypeToken<T>() {
+        }.getType(), JsonFiles.GSON);
     }
 
     /**
@@ -171,19 +297,48 @@ public class ConfigUtils {
      * @param <T>              the type of the loaded object
      * @return the loaded object
      * @throws IOException
+     * @deprecated the type argument is erased, so the object is read as generic maps and lists, use
+     * {@link #loadFromJson(File, String, Type, Gson)} instead
      */
     @Nullable
+    @Deprecated
     public static <T> T loadFromJson(File pluginDataFolder, String filePath, Gson gson) throws IOException {
-        File jsonFile = new File(pluginDataFolder, filePath);
+        return loadFromJson(pluginDataFolder, filePath, new TypeToken<T>() {
+        }.getType(), gson);
+    }
 
-        if (!jsonFile.isFile()) return null;
-        Reader reader = new FileReader(jsonFile);
+    /**
+     * Deserializes and returns an object of the specified class from the json file at the specified file path.
+     *
+     * @param pluginDataFolder the plugin data folder where the json file exists
+     * @param filePath         the file path of the json file
+     * @param clazz            the class of the object to load
+     * @param <T>              the type of the loaded object
+     * @return the loaded object
+     * @throws IOException
+     */
+    @Nullable
+    public static <T> T loadFromJson(File pluginDataFolder, String filePath, Class<T> clazz) throws IOException {
+        return loadFromJson(pluginDataFolder, filePath, clazz, JsonFiles.GSON);
+    }
 
-        T o = gson.fromJson(reader, new TypeToken<T>() {
-        }.getType());
+    /**
+     * Deserializes and returns an object of the specified type from the json file at the specified file path.
+     *
+     * @param pluginDataFolder the plugin data folder where the json file exists
+     * @param filePath         the file path of the json file
+     * @param type             the type of the object to load
+     * @param gson             the Gson object to use in the deserializing
+     * @param <T>              the type of the loaded object
+     * @return the loaded object
+     * @throws IOException
+     */
+    @Nullable
+    public static <T> T loadFromJson(File pluginDataFolder, String filePath, Type type, Gson gson) throws IOException {
+        File jsonFile = new File(pluginDataFolder, filePath);
 
-        reader.close();
-        return o;
+        if (!jsonFile.isFile()) return null;
+        return JsonFiles.read(jsonFile.toPath(), type, gson);
     }
 
 }
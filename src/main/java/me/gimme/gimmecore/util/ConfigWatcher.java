@@ -0,0 +1,295 @@
+package me.gimme.gimmecore.util;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Watches YAML config files in a plugin's data folder for changes and reloads them automatically.
+ * <p>
+ * Change events are debounced, so that an editor saving a file in several writes only causes one reload. Changed
+ * files are parsed and validated on the watcher thread, and a file that fails to parse or validate is logged and
+ * ignored, keeping the previous snapshot live. Successfully reloaded configs are published as the new snapshot and
+ * handed to the registered callbacks on the main thread.
+ */
+public class ConfigWatcher {
+
+    /**
+     * Compiles a parsed config into whatever the consumer needs, off the main thread. Throwing any exception rejects
+     * the reloaded config.
+     *
+     * @param <T> the type of the compiled result
+     */
+    public interface Compiler<T> {
+        T compile(@NotNull YamlConfiguration config) throws Exception;
+    }
+
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 500;
+    private static final long IDLE_POLL_MILLIS = 1000;
+
+    private Plugin plugin;
+    private Path dataFolder;
+    private long debounceMillis;
+
+    private Map<Path, WatchedFile> watchedFileByPath = new ConcurrentHashMap<>();
+    private Set<Path> registeredDirectories = ConcurrentHashMap.newKeySet();
+    private Map<Path, Long> pendingChangeTimes = new HashMap<>();
+
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running = false;
+
+    public ConfigWatcher(@NotNull Plugin plugin) {
+        this(plugin, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * @param plugin         the plugin whose data folder to watch
+     * @param debounceMillis how long a file has to be left unchanged before it is reloaded, in milliseconds
+     */
+    public ConfigWatcher(@NotNull Plugin plugin, long debounceMillis) {
+        this.plugin = plugin;
+        this.dataFolder = plugin.getDataFolder().toPath().toAbsolutePath().normalize();
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Starts the watcher thread.
+     *
+     * @return this
+     * @throws IOException if the file system could not be watched
+     */
+    @NotNull
+    public synchronized ConfigWatcher start() throws IOException {
+        if (running) return this;
+
+        watchService = dataFolder.getFileSystem().newWatchService();
+        registeredDirectories.clear();
+        for (Path path : watchedFileByPath.keySet()) {
+            registerDirectory(path.getParent());
+        }
+
+        running = true;
+        thread = new Thread(this::run, plugin.getName() + " - Config Watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    /**
+     * Stops the watcher thread. Should be called when the plugin is disabled.
+     */
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Watches a config file and calls the callback on the main thread with the new config every time it has been
+     * changed and successfully parsed.
+     *
+     * @param filePath the path to the config file, relative to the plugin's data folder, also used as the resource
+     *                 path to get default values from
+     * @param callback the callback with the reloaded config
+     */
+    public void watch(@NotNull String filePath, @NotNull Consumer<YamlConfiguration> callback) {
+        watch(filePath, config -> config, (config, compiled) -> callback.accept(config));
+    }
+
+    /**
+     * Watches a config file. Every time it has been changed and successfully parsed, the config is compiled with the
+     * specified compiler on the watcher thread, and if that succeeds the callback is called on the main thread with
+     * the new config and its compiled result.
+     *
+     * @param filePath the path to the config file, relative to the plugin's data folder, also used as the resource
+     *                 path to get default values from
+     * @param compiler a compiler that validates and converts the config off the main thread, or throws to reject it
+     * @param callback the callback with the reloaded config and its compiled result, or null for no callback
+     * @param <T>      the type of the compiled result
+     */
+    public <T> void watch(@NotNull String filePath, @NotNull Compiler<T> compiler,
+                          @Nullable BiConsumer<YamlConfiguration, T> callback) {
+        Path path = resolve(filePath);
+        WatchedFile watchedFile = watchedFileByPath.computeIfAbsent(path, k -> new WatchedFile(filePath));
+        watchedFile.registrations.add(new Registration<>(compiler, callback));
+
+        if (running) {
+            try {
+                registerDirectory(path.getParent());
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not watch " + filePath + " for changes", e);
+            }
+        }
+    }
+
+    /**
+     * Stops watching a config file.
+     *
+     * @param filePath the path to the config file, relative to the plugin's data folder
+     */
+    public void unwatch(@NotNull String filePath) {
+        watchedFileByPath.remove(resolve(filePath));
+    }
+
+    /**
+     * @param filePath the path to the config file, relative to the plugin's data folder
+     * @return the last successfully reloaded snapshot of the config, or null if it has not been reloaded by this
+     * watcher
+     */
+    @Nullable
+    public YamlConfiguration getSnapshot(@NotNull String filePath) {
+        WatchedFile watchedFile = watchedFileByPath.get(resolve(filePath));
+        return watchedFile == null ? null : watchedFile.snapshot;
+    }
+
+    @NotNull
+    private Path resolve(@NotNull String filePath) {
+        return dataFolder.resolve(filePath).toAbsolutePath().normalize();
+    }
+
+    private void registerDirectory(@NotNull Path directory) throws IOException {
+        if (!registeredDirectories.add(directory)) return;
+        Files.createDirectories(directory);
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.OVERFLOW);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                long timeout = pendingChangeTimes.isEmpty() ? IDLE_POLL_MILLIS : Math.max(1, debounceMillis / 4);
+                WatchKey key = watchService.poll(timeout, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    Path directory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        onEvent(directory, event);
+                    }
+                    key.reset();
+                }
+
+                reloadSettledFiles();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.SEVERE, "Unexpected error in the config watcher", e);
+            }
+        }
+    }
+
+    private void onEvent(@NotNull Path directory, @NotNull WatchEvent<?> event) {
+        long now = System.currentTimeMillis();
+
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            for (Path path : watchedFileByPath.keySet()) {
+                if (path.getParent().equals(directory)) pendingChangeTimes.put(path, now);
+            }
+            return;
+        }
+
+        Path path = directory.resolve((Path) event.context()).toAbsolutePath().normalize();
+        if (watchedFileByPath.containsKey(path)) pendingChangeTimes.put(path, now);
+    }
+
+    private void reloadSettledFiles() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, Long>> iterator = pendingChangeTimes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> entry = iterator.next();
+            if (now - entry.getValue() < debounceMillis) continue;
+
+            iterator.remove();
+            WatchedFile watchedFile = watchedFileByPath.get(entry.getKey());
+            if (watchedFile != null) reload(watchedFile);
+        }
+    }
+
+    /**
+     * Parses, validates and compiles a changed file off the main thread, then publishes it on the main thread.
+     */
+    private void reload(@NotNull WatchedFile watchedFile) {
+        YamlConfiguration config;
+        try {
+            config = ConfigUtils.loadConfig(plugin, watchedFile.filePath, watchedFile.filePath);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException | InvalidConfigurationException e) {
+            plugin.getLogger().warning("Could not reload " + watchedFile.filePath + ", keeping the previous version: " +
+                    e.getMessage());
+            return;
+        }
+
+        String contents = config.saveToString();
+        if (contents.equals(watchedFile.contents)) return;
+
+        List<Runnable> callbacks = new ArrayList<>();
+        for (Registration<?> registration : watchedFile.registrations) {
+            try {
+                callbacks.add(registration.compile(config));
+            } catch (Exception e) {
+                plugin.getLogger().warning("Invalid config " + watchedFile.filePath + ", keeping the previous " +
+                        "version: " + e.getMessage());
+                return;
+            }
+        }
+
+        watchedFile.contents = contents;
+        watchedFile.snapshot = config;
+        if (!plugin.isEnabled()) return;
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            for (Runnable callback : callbacks) {
+                callback.run();
+            }
+        });
+    }
+
+    private static class WatchedFile {
+        private final String filePath;
+        private final List<Registration<?>> registrations = new CopyOnWriteArrayList<>();
+        private volatile String contents;
+        private volatile YamlConfiguration snapshot;
+
+        private WatchedFile(@NotNull String filePath) {
+            this.filePath = filePath;
+        }
+    }
+
+    private static class Registration<T> {
+        private final Compiler<T> compiler;
+        private final BiConsumer<YamlConfiguration, T> callback;
+
+        private Registration(@NotNull Compiler<T> compiler, @Nullable BiConsumer<YamlConfiguration, T> callback) {
+            this.compiler = compiler;
+            this.callback = callback;
+        }
+
+        /**
+         * Compiles the config and returns the callback to run on the main thread with the result.
+         */
+        @NotNull
+        private Runnable compile(@NotNull YamlConfiguration config) throws Exception {
+            T compiled = compiler.compile(config);
+            return () -> {
+                if (callback != null) callback.accept(config, compiled);
+            };
+        }
+    }
+
+}
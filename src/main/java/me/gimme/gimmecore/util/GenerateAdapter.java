@@ -0,0 +1,18 @@
+package me.gimme.gimmecore.util;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a persisted data class to have a Gson type adapter generated for it at compile time, which replaces Gson's
+ * reflective binding in the Gson objects of {@link JsonFiles} and in any Gson object built with
+ * {@link JsonFiles#newGsonBuilder()}.
+ * <p>
+ * The class must have a non-private no-argument constructor, must not have type parameters, and its persisted fields
+ * (all non-static, non-transient fields, including inherited ones) must not be private, so that the generated adapter
+ * can access them directly. Field names can be changed with {@link com.google.gson.annotations.SerializedName}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface GenerateAdapter {
+}
@@ -0,0 +1,97 @@
+package me.gimme.gimmecore.util;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides the type adapters generated at compile time for classes annotated with {@link GenerateAdapter}, which are
+ * named after the class with the suffix {@value #ADAPTER_SUFFIX}.
+ */
+public final class GeneratedAdapterFactory implements TypeAdapterFactory {
+
+    public static final GeneratedAdapterFactory INSTANCE = new GeneratedAdapterFactory();
+
+    /**
+     * The suffix of the simple name of a generated adapter, appended to the binary simple name of the class with
+     * {@code $} replaced by {@code _}.
+     */
+    public static final String ADAPTER_SUFFIX = "_GsonAdapter";
+
+    private static final Constructor<?> NONE;
+
+    static {
+        try {
+            NONE = Object.class.getConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Map<Class<?>, Constructor<?>> constructorByClass = new ConcurrentHashMap<>();
+
+    private GeneratedAdapterFactory() {
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (!rawType.isAnnotationPresent(GenerateAdapter.class)) return null;
+
+        Constructor<?> constructor = constructorByClass.computeIfAbsent(rawType, GeneratedAdapterFactory::find);
+        if (constructor == NONE) return null;
+
+        try {
+            return (TypeAdapter<T>) constructor.newInstance(gson);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the generated adapter of " + rawType.getName(), e);
+        }
+    }
+
+    @NotNull
+    private static Constructor<?> find(@NotNull Class<?> clazz) {
+        String name = clazz.getName();
+        int packageEnd = name.lastIndexOf('.');
+        String adapterName = name.substring(0, packageEnd + 1) + name.substring(packageEnd + 1).replace('$', '_') +
+                ADAPTER_SUFFIX;
+        try {
+            Constructor<?> constructor = Class.forName(adapterName, true, clazz.getClassLoader())
+                    .getDeclaredConstructor(Gson.class);
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            // Not compiled with the annotation processor, fall back to reflection
+            return NONE;
+        }
+    }
+
+    /**
+     * Reads a string like Gson's built-in string adapter. Used by generated adapters.
+     *
+     * @param in the reader to read from
+     * @return the read string, or null
+     * @throws IOException if the string could not be read
+     */
+    @Nullable
+    public static String readString(@NotNull JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) return Boolean.toString(in.nextBoolean());
+        return in.nextString();
+    }
+
+}
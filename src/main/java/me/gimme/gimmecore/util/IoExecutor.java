@@ -0,0 +1,282 @@
+package me.gimme.gimmecore.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The shared executor for blocking file I/O, such as serializing and writing save files, so that it never runs on the
+ * main thread or occupies the common fork-join pool.
+ * <p>
+ * On Java 21 and later, every task runs in its own virtual thread, which makes waiting on the disk nearly free, and
+ * the amount of tasks running at once can be bounded without touching the JVM's own scheduler. On older JVMs the
+ * tasks run on a small bounded pool of platform threads instead. The mode and its limits can be configured with
+ * system properties (for example {@code -Dgimmecore.io.mode=platform}), which are read when the executor is first
+ * used:
+ * <ul>
+ *     <li>{@value #MODE_PROPERTY}: {@code auto} (default), {@code virtual} or {@code platform}</li>
+ *     <li>{@value #THREADS_PROPERTY}: the amount of threads of the platform-thread pool</li>
+ *     <li>{@value #MAX_VIRTUAL_TASKS_PROPERTY}: the maximum amount of tasks running at once in virtual mode (unbounded
+ *     by default); further tasks wait in their virtual threads until one of them finishes</li>
+ * </ul>
+ */
+public final class IoExecutor {
+
+    /**
+     * How the tasks of the executor are run.
+     */
+    public enum Mode {
+        /**
+         * Each task runs in its own virtual thread (Java 21+).
+         */
+        VIRTUAL,
+        /**
+         * The tasks run on a bounded pool of platform threads.
+         */
+        PLATFORM
+    }
+
+    public static final String MODE_PROPERTY = "gimmecore.io.mode";
+    public static final String THREADS_PROPERTY = "gimmecore.io.threads";
+    public static final String MAX_VIRTUAL_TASKS_PROPERTY = "gimmecore.io.maxVirtualTasks";
+
+    private static final String THREAD_NAME = "GimmeCore I/O #";
+    private static final int DEFAULT_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static final IoMetrics metrics;
+    private static final ExecutorService executor;
+
+    static {
+        String mode = System.getProperty(MODE_PROPERTY, "auto");
+        ExecutorService virtualExecutor = mode.equalsIgnoreCase("platform") ? null : createVirtualExecutor();
+
+        if (virtualExecutor != null) {
+            Integer maxTasks = Integer.getInteger(MAX_VIRTUAL_TASKS_PROPERTY);
+            metrics = new IoMetrics(Mode.VIRTUAL, -1);
+            executor = new InstrumentedExecutor(virtualExecutor,
+                    maxTasks == null ? null : new Semaphore(Math.max(1, maxTasks)));
+        } else {
+            int threads = Math.max(1, Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS));
+            metrics = new IoMetrics(Mode.PLATFORM, threads);
+            executor = new InstrumentedExecutor(createPlatformExecutor(threads), null);
+        }
+    }
+
+    private IoExecutor() {
+    }
+
+    /**
+     * @return the shared executor for blocking file I/O
+     */
+    @NotNull
+    public static ExecutorService get() {
+        return executor;
+    }
+
+    /**
+     * @return the metrics of the tasks run by the shared executor
+     */
+    @NotNull
+    public static IoMetrics getMetrics() {
+        return metrics;
+    }
+
+    @NotNull
+    private static ExecutorService createPlatformExecutor(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor through reflection, since this is compiled for Java 8.
+     *
+     * @return the executor, or null if virtual threads are not supported
+     */
+    private static ExecutorService createVirtualExecutor() {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME, 1L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor",
+                    ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Older JVM, or virtual threads are a disabled preview feature
+            return null;
+        }
+    }
+
+    /**
+     * Metrics of the tasks run by the I/O executor. In platform mode, the queue times show when file I/O is waiting
+     * for a free thread; in virtual mode, tasks start immediately unless the amount of running tasks is bounded, and
+     * the peak of running tasks shows how much file I/O is blocking at once.
+     */
+    public static class IoMetrics {
+        private Mode mode;
+        private int threads;
+        private final AtomicLong submittedTasks = new AtomicLong();
+        private final AtomicLong completedTasks = new AtomicLong();
+        private final AtomicInteger runningTasks = new AtomicInteger();
+        private final AtomicInteger peakRunningTasks = new AtomicInteger();
+        private final AtomicLong totalQueueNanos = new AtomicLong();
+        private final AtomicLong maxQueueNanos = new AtomicLong();
+        private final AtomicLong totalRunNanos = new AtomicLong();
+
+        private IoMetrics(@NotNull Mode mode, int threads) {
+            this.mode = mode;
+            this.threads = threads;
+        }
+
+        /**
+         * @return how the tasks of the executor are run
+         */
+        @NotNull
+        public Mode getMode() {
+            return mode;
+        }
+
+        /**
+         * @return the amount of threads of the platform-thread pool, or -1 in virtual mode
+         */
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * @return the amount of tasks that have been submitted
+         */
+        public long getSubmittedTasks() {
+            return submittedTasks.get();
+        }
+
+        /**
+         * @return the amount of tasks that have finished
+         */
+        public long getCompletedTasks() {
+            return completedTasks.get();
+        }
+
+        /**
+         * @return the amount of tasks running right now
+         */
+        public int getRunningTasks() {
+            return runningTasks.get();
+        }
+
+        /**
+         * @return the highest amount of tasks that have been running at once
+         */
+        public int getPeakRunningTasks() {
+            return peakRunningTasks.get();
+        }
+
+        /**
+         * @return the average time a task waited before it started running, in nanoseconds
+         */
+        public long getAverageQueueNanos() {
+            long tasks = completedTasks.get();
+            return tasks == 0 ? 0 : totalQueueNanos.get() / tasks;
+        }
+
+        /**
+         * @return the longest time a task waited before it started running, in nanoseconds
+         */
+        public long getMaxQueueNanos() {
+            return maxQueueNanos.get();
+        }
+
+        /**
+         * @return the average time a task took to run, in nanoseconds
+         */
+        public long getAverageRunNanos() {
+            long tasks = completedTasks.get();
+            return tasks == 0 ? 0 : totalRunNanos.get() / tasks;
+        }
+
+        @Override
+        public String toString() {
+            return mode + (mode == Mode.PLATFORM ? " (" + threads + " threads)" : "") + ": " + completedTasks +
+                    " tasks, peak " + peakRunningTasks + " running, queue avg " +
+                    TimeUnit.NANOSECONDS.toMicros(getAverageQueueNanos()) + " us / max " +
+                    TimeUnit.NANOSECONDS.toMicros(getMaxQueueNanos()) + " us, run avg " +
+                    TimeUnit.NANOSECONDS.toMicros(getAverageRunNanos()) + " us";
+        }
+    }
+
+    /**
+     * Records the metrics of every task run by the executor it wraps, and optionally bounds how many of them run at
+     * once. The time a task waits for a permit counts as queue time.
+     */
+    private static class InstrumentedExecutor extends AbstractExecutorService {
+        private ExecutorService delegate;
+        private Semaphore permits;
+
+        private InstrumentedExecutor(@NotNull ExecutorService delegate, @Nullable Semaphore permits) {
+            this.delegate = delegate;
+            this.permits = permits;
+        }
+
+        @Override
+        public void execute(@NotNull Runnable command) {
+            long submitted = System.nanoTime();
+            metrics.submittedTasks.incrementAndGet();
+            delegate.execute(() -> {
+                if (permits != null) permits.acquireUninterruptibly();
+                long start = System.nanoTime();
+                long queueNanos = start - submitted;
+                metrics.totalQueueNanos.addAndGet(queueNanos);
+                metrics.maxQueueNanos.accumulateAndGet(queueNanos, Math::max);
+                metrics.peakRunningTasks.accumulateAndGet(metrics.runningTasks.incrementAndGet(), Math::max);
+                try {
+                    command.run();
+                } finally {
+                    if (permits != null) permits.release();
+                    metrics.runningTasks.decrementAndGet();
+                    metrics.totalRunNanos.addAndGet(System.nanoTime() - start);
+                    metrics.completedTasks.incrementAndGet();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @NotNull
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+
+}
@@ -0,0 +1,384 @@
+package me.gimme.gimmecore.util;
+
+import com.google.gson.*;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A crash-safe key-value store persisted as a snapshot and an append-only journal.
+ * <p>
+ * Every change is appended to the journal as a compact record, and the journal is written and fsynced in batches, so
+ * the cost of saving scales with the amount of changes rather than with the size of the data. Once the journal has
+ * grown larger than the snapshot, the store is compacted by writing a fresh snapshot to a temporary file that
+ * atomically replaces the previous snapshot, and the journal is truncated. Loading replays the snapshot and then the
+ * journal, discarding a last journal record that was only partially written when the server crashed. A corrupt
+ * record anywhere else fails the load instead, so that the records after it are never discarded.
+ * <p>
+ * Values are encoded when they are put, so a value that is modified afterwards has to be put again for the change to
+ * be saved. Changes must be made on a single thread (normally the main thread); flushing and compaction are safe to
+ * run on other threads.
+ *
+ * @param <V> the type of the values
+ */
+public class JournalStore<V> implements PersistentStore {
+
+    private static final String SNAPSHOT_EXTENSION = ".snapshot.jsonl";
+    private static final String JOURNAL_EXTENSION = ".journal.jsonl";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final long MIN_COMPACTION_BYTES = 1024 * 1024;
+
+    private static final String KEY = "k";
+    private static final String VALUE = "v";
+
+    private Plugin plugin;
+    private Type valueType;
+    private Gson gson;
+    private Path snapshotPath;
+    private Path journalPath;
+
+    private Map<String, V> valueByKey = new HashMap<>();
+    private Map<String, String> recordByKey = new ConcurrentHashMap<>();
+
+    private final Object pendingLock = new Object();
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    private final Object ioLock = new Object();
+    private FileChannel journal;
+    private long journalBytes = 0;
+    private long snapshotBytes = 0;
+
+    /**
+     * @param plugin    the plugin whose data folder to store the files in
+     * @param filePath  the path to the store, relative to the plugin's data folder and without extension
+     * @param valueType the type of the values
+     */
+    public JournalStore(@NotNull Plugin plugin, @NotNull String filePath, @NotNull Type valueType) {
+        this(plugin, filePath, valueType, JsonFiles.GSON);
+    }
+
+    /**
+     * @param plugin    the plugin whose data folder to store the files in
+     * @param filePath  the path to the store, relative to the plugin's data folder and without extension
+     * @param valueType the type of the values
+     * @param gson      the Gson object to encode and decode the values with
+     */
+    public JournalStore(@NotNull Plugin plugin, @NotNull String filePath, @NotNull Type valueType,
+                        @NotNull Gson gson) {
+        this.plugin = plugin;
+        this.valueType = valueType;
+        this.gson = gson;
+
+        Path basePath = Paths.get(plugin.getDataFolder().getAbsolutePath(), filePath);
+        this.snapshotPath = basePath.resolveSibling(basePath.getFileName() + SNAPSHOT_EXTENSION);
+        this.journalPath = basePath.resolveSibling(basePath.getFileName() + JOURNAL_EXTENSION);
+    }
+
+    /**
+     * Loads the store by replaying the snapshot and then the journal, and opens the journal for appending. An
+     * unreadable last line of the journal is a partially written record, which is discarded; the files are left as
+     * they are if any other record is unreadable.
+     *
+     * @return this
+     * @throws IOException if the files could not be read, contain a corrupt record, or the journal could not be opened
+     */
+    @NotNull
+    public JournalStore<V> load() throws IOException {
+        synchronized (ioLock) {
+            Files.createDirectories(journalPath.getParent());
+            Files.deleteIfExists(snapshotPath.resolveSibling(snapshotPath.getFileName() + TEMP_EXTENSION));
+
+            valueByKey.clear();
+            recordByKey.clear();
+            if (Files.isRegularFile(snapshotPath)) {
+                snapshotBytes = replay(snapshotPath, false);
+            }
+            long validJournalBytes = Files.isRegularFile(journalPath) ? replay(journalPath, true) : 0;
+
+            journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (journal.size() > validJournalBytes) {
+                plugin.getLogger().warning("Discarding a partially written record at the end of " + journalPath);
+                journal.truncate(validJournalBytes);
+            }
+            journal.position(validJournalBytes);
+            journalBytes = validJournalBytes;
+        }
+        return this;
+    }
+
+    /**
+     * Replays the records of a file into the store.
+     *
+     * @param allowTornTail if an unreadable last line is a partially written record, which ends the replay
+     * @return the amount of bytes of complete records read
+     * @throws IOException if the file could not be read or contains a corrupt record
+     */
+    private long replay(@NotNull Path path, boolean allowTornTail) throws IOException {
+        long validBytes = 0;
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                lineNumber++;
+                String nextLine = reader.readLine();
+                if (!line.isEmpty()) {
+                    try {
+                        replayRecord(line);
+                    } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+                        if (allowTornTail && nextLine == null) break;
+                        throw new IOException("Corrupt record on line " + lineNumber + " of " + path + ": " +
+                                e.getMessage(), e);
+                    }
+                }
+                validBytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                line = nextLine;
+            }
+        }
+        return Math.min(validBytes, Files.size(path));
+    }
+
+    /**
+     * Applies a record line to the store.
+     *
+     * @throws JsonParseException if the line is not a record with a key
+     */
+    private void replayRecord(@NotNull String line) {
+        JsonObject record = new JsonParser().parse(line).getAsJsonObject();
+        JsonElement keyElement = record.get(KEY);
+        if (keyElement == null || !keyElement.isJsonPrimitive()) throw new JsonParseException("Missing key");
+
+        String key = keyElement.getAsString();
+        JsonElement value = record.get(VALUE);
+        if (value == null) {
+            valueByKey.remove(key);
+            recordByKey.remove(key);
+        } else {
+            valueByKey.put(key, gson.fromJson(value, valueType));
+            recordByKey.put(key, line);
+        }
+    }
+
+    /**
+     * @param key the key of the value
+     * @return the value with the key, or null if the store has no value with the key
+     */
+    @Nullable
+    public V get(@NotNull String key) {
+        return valueByKey.get(key);
+    }
+
+    /**
+     * @param key the key of the value
+     * @return if the store has a value with the key
+     */
+    public boolean contains(@NotNull String key) {
+        return valueByKey.containsKey(key);
+    }
+
+    /**
+     * @return an unmodifiable view of all values in the store by key
+     */
+    @NotNull
+    public Map<String, V> getAll() {
+        return Collections.unmodifiableMap(valueByKey);
+    }
+
+    /**
+     * @return the amount of values in the store
+     */
+    public int size() {
+        return valueByKey.size();
+    }
+
+    /**
+     * Puts a value in the store and appends the change to the journal on the next flush.
+     *
+     * @param key   the key of the value
+     * @param value the value, which is encoded immediately
+     */
+    public void put(@NotNull String key, @NotNull V value) {
+        JsonObject record = new JsonObject();
+        record.addProperty(KEY, key);
+        record.add(VALUE, gson.toJsonTree(value, valueType));
+        String line = gson.toJson(record);
+
+        valueByKey.put(key, value);
+        synchronized (pendingLock) {
+            recordByKey.put(key, line);
+            append(line);
+        }
+    }
+
+    /**
+     * Removes a value from the store and appends the change to the journal on the next flush.
+     *
+     * @param key the key of the value
+     */
+    public void remove(@NotNull String key) {
+        if (valueByKey.remove(key) == null) return;
+
+        JsonObject record = new JsonObject();
+        record.addProperty(KEY, key);
+        String line = gson.toJson(record);
+
+        synchronized (pendingLock) {
+            recordByKey.remove(key);
+            append(line);
+        }
+    }
+
+    private void append(@NotNull String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        pending.write(bytes, 0, bytes.length);
+        pending.write('\n');
+    }
+
+    /**
+     * Writes and fsyncs all changes made since the last flush to the journal on the I/O executor, and compacts the
+     * store if the journal has grown larger than the snapshot.
+     *
+     * @return a future that completes when the changes have been written
+     */
+    @NotNull
+    public CompletableFuture<Void> flush() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                flushNow();
+                if (shouldCompact()) compact();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, IoExecutor.get());
+    }
+
+    /**
+     * Writes and fsyncs all changes made since the last flush to the journal on the calling thread.
+     *
+     * @throws IOException if the journal could not be written
+     */
+    public void flushNow() throws IOException {
+        synchronized (ioLock) {
+            if (journal == null) return;
+            byte[] bytes;
+            synchronized (pendingLock) {
+                if (pending.size() == 0) return;
+                bytes = pending.toByteArray();
+                pending.reset();
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journal.force(false);
+            journalBytes += bytes.length;
+        }
+    }
+
+    /**
+     * The changes are already serialized when they are made, so they are only written in the returned task.
+     */
+    @NotNull
+    @Override
+    public List<Flush> prepareFlush() {
+        return Collections.singletonList(this::flushNow);
+    }
+
+    /**
+     * Flushes the journal and the store at the specified period.
+     *
+     * @param plugin the plugin to run the flush task with
+     * @param period the period between flushes in ticks
+     */
+    public void autoflush(@NotNull Plugin plugin, long period) {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                flush().exceptionally(e -> {
+                    plugin.getLogger().severe("Could not flush " + journalPath + ": " + e.getCause());
+                    return null;
+                });
+            }
+        }.runTaskTimer(plugin, period, period);
+    }
+
+    private boolean shouldCompact() {
+        synchronized (ioLock) {
+            return journalBytes > Math.max(MIN_COMPACTION_BYTES, snapshotBytes);
+        }
+    }
+
+    /**
+     * Writes a fresh snapshot of the store, which atomically replaces the previous snapshot, and truncates the journal.
+     * Changes made during the compaction are kept for the next flush.
+     *
+     * @throws IOException if the snapshot could not be written
+     */
+    public void compact() throws IOException {
+        synchronized (ioLock) {
+            flushNow();
+            List<String> records = new ArrayList<>(recordByKey.values());
+
+            Path tempPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + TEMP_EXTENSION);
+            long bytes = 0;
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                for (String record : records) {
+                    byte[] recordBytes = record.getBytes(StandardCharsets.UTF_8);
+                    out.write(recordBytes, 0, recordBytes.length);
+                    out.write('\n');
+                    if (out.size() >= 64 * 1024) bytes += writeFully(channel, out);
+                }
+                bytes += writeFully(channel, out);
+                channel.force(true);
+            }
+            Files.move(tempPath, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            journal.truncate(0);
+            journal.position(0);
+            journal.force(true);
+            journalBytes = 0;
+            snapshotBytes = bytes;
+        }
+    }
+
+    private static long writeFully(@NotNull FileChannel channel, @NotNull ByteArrayOutputStream out)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        out.reset();
+        return buffer.limit();
+    }
+
+    /**
+     * Flushes all remaining changes and closes the journal. Should be called when the plugin is disabled.
+     *
+     * @throws IOException if the journal could not be written or closed
+     */
+    public void close() throws IOException {
+        synchronized (ioLock) {
+            if (journal == null) return;
+            flushNow();
+            journal.close();
+            journal = null;
+        }
+    }
+
+}
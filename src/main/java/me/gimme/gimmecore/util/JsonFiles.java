@@ -0,0 +1,346 @@
+package me.gimme.gimmecore.util;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming reads and writes of JSON files, binding directly between the file and the objects without building the
+ * whole JSON as a tree or a string in between. Files can also be written with other {@link SaveCodec}s, which are
+ * detected when the files are read.
+ */
+public final class JsonFiles {
+
+    /**
+     * A shared compact Gson object.
+     */
+    public static final Gson GSON = newGsonBuilder().create();
+    /**
+     * A shared pretty-printing Gson object.
+     */
+    public static final Gson PRETTY_GSON = newGsonBuilder().setPrettyPrinting().create();
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private static final AtomicLong performedWrites = new AtomicLong();
+    private static final AtomicLong skippedWrites = new AtomicLong();
+
+    private JsonFiles() {
+    }
+
+    /**
+     * Creates a Gson builder that uses the generated type adapters of classes annotated with {@link GenerateAdapter}.
+     * Gson objects for persisted data should be built from this, so that they are not bound through reflection.
+     *
+     * @return a new Gson builder
+     */
+    @NotNull
+    public static GsonBuilder newGsonBuilder() {
+        return new GsonBuilder().registerTypeAdapterFactory(GeneratedAdapterFactory.INSTANCE);
+    }
+
+    /**
+     * Reads and binds the JSON file at the path. The codec of the file is detected from its header, and a file without
+     * a header is read as plain JSON.
+     *
+     * @param path the path to the JSON file
+     * @param type the type of the object to read
+     * @param gson the Gson object to use in the deserializing
+     * @param <T>  the type of the object to read
+     * @return the read object, or null if the file is empty or contains null
+     * @throws IOException if the file could not be read or is not valid JSON for the type
+     */
+    @Nullable
+    public static <T> T read(@NotNull Path path, @NotNull Type type, @NotNull Gson gson) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 64 * 1024)) {
+            return SaveCodec.detect(in).decode(in, type, gson);
+        } catch (IOException e) {
+            throw new IOException("Could not read " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param path the path to the file
+     * @return the codec of the file, as detected from its header
+     * @throws IOException if the file could not be read or has an unknown header
+     */
+    @NotNull
+    public static SaveCodec detectCodec(@NotNull Path path) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            return SaveCodec.detect(in);
+        }
+    }
+
+    /**
+     * Serializes an object directly into the file at the path as plain JSON. The object is written to a temporary file
+     * that then replaces the file at once, so that a failed write never leaves a truncated file.
+     *
+     * @param path   the path to the JSON file
+     * @param object the object to write
+     * @param type   the type of the object to write
+     * @param gson   the Gson object to use in the serializing
+     * @throws IOException if the file could not be written
+     */
+    public static void write(@NotNull Path path, @Nullable Object object, @NotNull Type type, @NotNull Gson gson)
+            throws IOException {
+        write(path, object, type, gson, SaveCodec.PLAIN_JSON);
+    }
+
+    /**
+     * Serializes an object directly into the file at the path with the specified codec. The object is written to a
+     * temporary file that then replaces the file at once, so that a failed write never leaves a truncated file.
+     *
+     * @param path   the path to the file
+     * @param object the object to write
+     * @param type   the type of the object to write
+     * @param gson   the Gson object to use in the serializing
+     * @param codec  the codec to write the file with
+     * @throws IOException if the file could not be written
+     */
+    public static void write(@NotNull Path path, @Nullable Object object, @NotNull Type type, @NotNull Gson gson,
+                             @NotNull SaveCodec codec) throws IOException {
+        Path tempPath = getTempPath(path);
+        writeTemp(path, tempPath, object, type, gson, codec);
+        replace(tempPath, path);
+    }
+
+    /**
+     * Serializes an object into the file at the path as plain JSON, unless the content is unchanged.
+     *
+     * @see #writeIfChanged(Path, Object, Type, Gson, SaveCodec)
+     */
+    public static boolean writeIfChanged(@NotNull Path path, @Nullable Object object, @NotNull Type type,
+                                         @NotNull Gson gson) throws IOException {
+        return writeIfChanged(path, object, type, gson, SaveCodec.PLAIN_JSON);
+    }
+
+    /**
+     * Serializes an object into the file at the path like {@link #write(Path, Object, Type, Gson, SaveCodec)}, unless
+     * the file already has exactly the same content, in which case the file is left as is.
+     * <p>
+     * The object is first encoded into a hash without writing anything, which is compared with a hash of the existing
+     * file if they have the same size, and only written if they differ. Stores that write the same file repeatedly
+     * should keep the returned {@link WrittenFile} and use
+     * {@link #writeIfChanged(Path, Object, Type, Gson, SaveCodec, WrittenFile)} instead, which does not have to read
+     * the existing file.
+     *
+     * @param path   the path to the file
+     * @param object the object to write
+     * @param type   the type of the object to write
+     * @param gson   the Gson object to use in the serializing
+     * @param codec  the codec to write the file with
+     * @return if the file was written, false if it was skipped because its content was unchanged
+     * @throws IOException if the file could not be written
+     */
+    public static boolean writeIfChanged(@NotNull Path path, @Nullable Object object, @NotNull Type type,
+                                         @NotNull Gson gson, @NotNull SaveCodec codec) throws IOException {
+        if (Files.isRegularFile(path)) {
+            CountingOutputStream encoded = new CountingOutputStream(ByteStreams.nullOutputStream());
+            HashingOutputStream hashing = new HashingOutputStream(HASH_FUNCTION, encoded);
+            codec.encode(hashing, object, type, gson, HASH_FUNCTION);
+            if (encoded.getCount() == Files.size(path) && hashing.hash().equals(hashFile(path))) {
+                skippedWrites.incrementAndGet();
+                return false;
+            }
+        }
+
+        write(path, object, type, gson, codec);
+        return true;
+    }
+
+    /**
+     * Serializes an object into the file at the path like {@link #write(Path, Object, Type, Gson, SaveCodec)}, unless
+     * the file was last written with exactly the same content and codec by the specified write and has not been
+     * modified since, in which case the file is left as is.
+     * <p>
+     * If the file has not been modified since the previous write, the object is first only hashed, without writing
+     * anything, and the file is left as is if the hash is unchanged. Otherwise the object is written, and its hash is
+     * computed while it is written.
+     *
+     * @param path     the path to the file
+     * @param object   the object to write
+     * @param type     the type of the object to write
+     * @param gson     the Gson object to use in the serializing
+     * @param codec    the codec to write the file with
+     * @param previous the last write of the file, or null if it is not known
+     * @return the new write of the file, or the previous write if the file was skipped because its content was
+     * unchanged
+     * @throws IOException if the file could not be written
+     */
+    @NotNull
+    public static WrittenFile writeIfChanged(@NotNull Path path, @Nullable Object object, @NotNull Type type,
+                                             @NotNull Gson gson, @NotNull SaveCodec codec,
+                                             @Nullable WrittenFile previous) throws IOException {
+        if (previous != null && previous.codec == codec && previous.isUnmodified(path) &&
+                previous.hash.equals(codec.hash(object, type, gson, HASH_FUNCTION))) {
+            skippedWrites.incrementAndGet();
+            return previous;
+        }
+
+        Path tempPath = getTempPath(path);
+        HashCode hash = writeTemp(path, tempPath, object, type, gson, codec);
+        replace(tempPath, path);
+        return new WrittenFile(path, codec, hash);
+    }
+
+    @NotNull
+    private static Path getTempPath(@NotNull Path path) {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    /**
+     * Serializes an object into the temporary file of a path.
+     *
+     * @return the hash of the uncompressed payload
+     */
+    @NotNull
+    private static HashCode writeTemp(@NotNull Path path, @NotNull Path tempPath, @Nullable Object object,
+                                      @NotNull Type type, @NotNull Gson gson, @NotNull SaveCodec codec)
+            throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempPath), 64 * 1024)) {
+            return codec.encode(out, object, type, gson, HASH_FUNCTION);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempPath);
+            throw new IOException("Could not write " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void replace(@NotNull Path tempPath, @NotNull Path path) throws IOException {
+        Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        performedWrites.incrementAndGet();
+    }
+
+    /**
+     * @return the hash of all bytes of the file
+     */
+    @NotNull
+    private static HashCode hashFile(@NotNull Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            HashingOutputStream hashing = new HashingOutputStream(HASH_FUNCTION, ByteStreams.nullOutputStream());
+            ByteStreams.copy(in, hashing);
+            return hashing.hash();
+        }
+    }
+
+    /**
+     * @return the amount of JSON files written
+     */
+    public static long getPerformedWrites() {
+        return performedWrites.get();
+    }
+
+    /**
+     * @return the amount of JSON file writes skipped because the content was unchanged
+     */
+    public static long getSkippedWrites() {
+        return skippedWrites.get();
+    }
+
+    /**
+     * Streams the elements of the top-level JSON array in the file at the path, reading and binding one element at a
+     * time. The stream must be closed to close the file, for example with a try-with-resources statement.
+     *
+     * @param path        the path to the JSON file with a top-level array
+     * @param elementType the type of the elements
+     * @param gson        the Gson object to use in the deserializing
+     * @param <T>         the type of the elements
+     * @return a stream of the elements of the array, which throws {@link UncheckedIOException} if the file is not a
+     * valid array
+     * @throws IOException if the file could not be opened or does not start with an array
+     */
+    @NotNull
+    public static <T> Stream<T> streamArray(@NotNull Path path, @NotNull Type elementType, @NotNull Gson gson)
+            throws IOException {
+        BufferedReader bufferedReader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        JsonReader reader = gson.newJsonReader(bufferedReader);
+        try {
+            reader.beginArray();
+        } catch (IOException | IllegalStateException e) {
+            reader.close();
+            throw new IOException("Expected a top-level array in " + path, e);
+        }
+
+        Iterator<T> iterator = new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return reader.hasNext();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                try {
+                    return gson.fromJson(reader, elementType);
+                } catch (JsonIOException | JsonSyntaxException e) {
+                    throw new UncheckedIOException(new IOException("Could not read " + path, e));
+                }
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * A write of a file with a content hash, which is kept by the writer to skip writing the same content again, see
+     * {@link #writeIfChanged(Path, Object, Type, Gson, SaveCodec, WrittenFile)}.
+     */
+    public static final class WrittenFile {
+        private final SaveCodec codec;
+        private final HashCode hash;
+        private final long size;
+        private final FileTime lastModified;
+
+        private WrittenFile(@NotNull Path path, @NotNull SaveCodec codec, @NotNull HashCode hash) throws IOException {
+            this.codec = codec;
+            this.hash = hash;
+            this.size = Files.size(path);
+            this.lastModified = Files.getLastModifiedTime(path);
+        }
+
+        /**
+         * @return if the file at the path still has the size and modification time it had when it was written
+         */
+        private boolean isUnmodified(@NotNull Path path) {
+            try {
+                return Files.size(path) == size && Files.getLastModifiedTime(path).equals(lastModified);
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,527 @@
+package me.gimme.gimmecore.util;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A store of records saved in one file per key, sharded into hashed bucket directories, of which only the recently
+ * used records are kept in memory.
+ * <p>
+ * Records are kept in a bounded LRU cache. Pinned records (such as those of online players) are never evicted, and a
+ * changed record is written back to its file when it is evicted or unpinned. The names of all existing record files
+ * are listed once when the store is started, so looking up a key that has never been saved (such as a new player)
+ * does not touch the disk at all.
+ * <p>
+ * Loading and writing files happens on the I/O executor. A record handed to the store is snapshotted into a JSON tree
+ * on the calling thread before it is written, so records should only be modified on the main thread. When the store is
+ * flushed by the {@link PersistenceRegistry}, the records are instead serialized on its flushing threads while the main
+ * thread waits for them.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the records
+ */
+public class KeyedSaveStore<K, V> implements PersistentStore {
+
+    private static final String EXTENSION = ".json";
+    private static final int DEFAULT_MAX_CACHED_RECORDS = 1000;
+    private static final int FLUSH_BATCH_SIZE = 64;
+
+    private Plugin plugin;
+    private Path directory;
+    private Type valueType;
+    private Function<K, String> fileNameOf;
+    private Gson gson = JsonFiles.GSON;
+    private SaveCodec codec = SaveCodec.COMPACT_JSON;
+    private int maxCachedRecords = DEFAULT_MAX_CACHED_RECORDS;
+
+    private final Object cacheLock = new Object();
+    private LinkedHashMap<K, Entry<V>> unpinnedCache = new LinkedHashMap<>(64, 0.75f, true);
+    private Map<K, Entry<V>> pinnedCache = new HashMap<>();
+    private Set<String> existingFileNames = ConcurrentHashMap.newKeySet();
+    private Map<K, CompletableFuture<Void>> pendingWrites = new ConcurrentHashMap<>();
+    private volatile boolean started = false;
+
+    /**
+     * @param plugin        the plugin whose data folder to store the files in
+     * @param directoryPath the path to the directory of the record files, relative to the plugin's data folder
+     * @param valueType     the type of the records
+     * @param fileNameOf    a function returning a unique file name for a key, without extension
+     */
+    public KeyedSaveStore(@NotNull Plugin plugin, @NotNull String directoryPath, @NotNull Type valueType,
+                          @NotNull Function<K, String> fileNameOf) {
+        this.plugin = plugin;
+        this.directory = Paths.get(plugin.getDataFolder().getAbsolutePath(), directoryPath);
+        this.valueType = valueType;
+        this.fileNameOf = fileNameOf;
+    }
+
+    /**
+     * @param gson the Gson object to use in the serializing and deserializing
+     */
+    public void setGson(@NotNull Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * @param codec the codec to save the record files with, existing files are read with their detected codec
+     */
+    public void setCodec(@NotNull SaveCodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * @param maxCachedRecords the maximum amount of unpinned records to keep in memory
+     */
+    public void setMaxCachedRecords(int maxCachedRecords) {
+        this.maxCachedRecords = maxCachedRecords;
+    }
+
+    /**
+     * Lists the existing record files, so that keys without a file can be looked up without touching the disk.
+     *
+     * @return this
+     * @throws IOException if the directory could not be listed
+     */
+    @NotNull
+    public KeyedSaveStore<K, V> start() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> buckets = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path bucket : buckets) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(bucket, "*" + EXTENSION)) {
+                    for (Path file : files) {
+                        String fileName = file.getFileName().toString();
+                        existingFileNames.add(fileName.substring(0, fileName.length() - EXTENSION.length()));
+                    }
+                }
+            }
+        }
+        started = true;
+        return this;
+    }
+
+    /**
+     * @param key the key of the record
+     * @return the cached record with the key, or null if it is not loaded or does not exist
+     */
+    @Nullable
+    public V getIfLoaded(@NotNull K key) {
+        synchronized (cacheLock) {
+            Entry<V> entry = getEntry(key);
+            return entry == null ? null : entry.value;
+        }
+    }
+
+    /**
+     * @param key the key of the record
+     * @return if a record with the key exists, either in memory or on disk
+     */
+    public boolean exists(@NotNull K key) {
+        synchronized (cacheLock) {
+            Entry<V> entry = getEntry(key);
+            if (entry != null) return entry.value != null;
+        }
+        return existingFileNames.contains(fileNameOf.apply(key));
+    }
+
+    /**
+     * Loads the record with the key into the cache on the I/O executor, unless it is already loaded.
+     *
+     * @param key the key of the record
+     * @return a future with the record, or null if there is no record with the key
+     */
+    @NotNull
+    public CompletableFuture<V> load(@NotNull K key) {
+        checkStarted();
+        synchronized (cacheLock) {
+            Entry<V> entry = getEntry(key);
+            if (entry != null) return CompletableFuture.completedFuture(entry.value);
+        }
+
+        // Chained after a pending write of the key instead of waiting for it, which would block an I/O thread
+        CompletableFuture<Void> pendingWrite = pendingWrites.get(key);
+        CompletableFuture<Void> after = pendingWrite == null ? CompletableFuture.completedFuture(null)
+                : pendingWrite.exceptionally(e -> null);
+        return after.thenApplyAsync(v -> {
+            try {
+                return read(key, false);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, IoExecutor.get());
+    }
+
+    /**
+     * Loads the record with the key into the cache on the calling thread, unless it is already loaded. Waits for a
+     * pending write of the record first, so it must not be called on the I/O executor, and should only be called on
+     * the main thread when the record is needed at once; use {@link #load(Object)} otherwise.
+     *
+     * @param key the key of the record
+     * @return the record, or null if there is no record with the key
+     * @throws IOException if the record file could not be read
+     */
+    @Nullable
+    public V loadNow(@NotNull K key) throws IOException {
+        return loadNow(key, false);
+    }
+
+    /**
+     * Loads the record with the key like {@link #loadNow(Object)}, and pins it in the same step, so that it cannot be
+     * evicted in between. A key without a record is pinned as well, so that a record put later is kept.
+     *
+     * @param key the key of the record
+     * @return the record, or null if there is no record with the key
+     * @throws IOException if the record file could not be read
+     */
+    @Nullable
+    public V loadAndPinNow(@NotNull K key) throws IOException {
+        return loadNow(key, true);
+    }
+
+    @Nullable
+    private V loadNow(@NotNull K key, boolean pin) throws IOException {
+        checkStarted();
+        synchronized (cacheLock) {
+            Entry<V> entry = getEntry(key);
+            if (entry != null) {
+                if (pin) pin(key);
+                return entry.value;
+            }
+        }
+
+        CompletableFuture<Void> pendingWrite = pendingWrites.get(key);
+        if (pendingWrite != null) pendingWrite.exceptionally(e -> null).join();
+        return read(key, pin);
+    }
+
+    /**
+     * Reads the record with the key into the cache, unless it has been loaded in the meantime.
+     */
+    @Nullable
+    private V read(@NotNull K key, boolean pin) throws IOException {
+        String fileName = fileNameOf.apply(key);
+        V value = existingFileNames.contains(fileName) ? JsonFiles.read(getPath(fileName), valueType, gson) : null;
+
+        synchronized (cacheLock) {
+            Entry<V> entry = getEntry(key);
+            if (entry != null) {
+                if (pin) pin(key);
+                return entry.value;
+            }
+            if (pin) {
+                pinnedCache.put(key, new Entry<>(value));
+            } else {
+                unpinnedCache.put(key, new Entry<>(value));
+                evict();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Puts a record in the cache, to be written when it is evicted, unpinned or flushed.
+     *
+     * @param key   the key of the record
+     * @param value the record
+     */
+    public void put(@NotNull K key, @NotNull V value) {
+        checkStarted();
+        synchronized (cacheLock) {
+            Entry<V> entry = getEntry(key);
+            if (entry == null) {
+                entry = new Entry<>(value);
+                unpinnedCache.put(key, entry);
+            }
+            entry.value = value;
+            entry.dirty = true;
+            evict();
+        }
+    }
+
+    /**
+     * Marks a cached record as changed, so that it is written when it is evicted, unpinned or flushed.
+     *
+     * @param key the key of the record
+     */
+    public void markDirty(@NotNull K key) {
+        synchronized (cacheLock) {
+            Entry<V> entry = getEntry(key);
+            if (entry != null && entry.value != null) entry.dirty = true;
+        }
+    }
+
+    /**
+     * Removes the record with the key from memory and deletes its file.
+     *
+     * @param key the key of the record
+     * @return a future that completes when the file has been deleted
+     */
+    @NotNull
+    public CompletableFuture<Void> remove(@NotNull K key) {
+        synchronized (cacheLock) {
+            Entry<V> entry = getEntry(key);
+            if (entry != null) {
+                entry.value = null;
+                entry.dirty = false;
+            }
+        }
+        return writeBack(key, null, null);
+    }
+
+    /**
+     * Pins a cached record, so that it is never evicted until it is unpinned.
+     *
+     * @param key the key of the record
+     * @return if the record was pinned, false if it is not loaded
+     */
+    public boolean pin(@NotNull K key) {
+        synchronized (cacheLock) {
+            Entry<V> entry = unpinnedCache.remove(key);
+            if (entry != null) pinnedCache.put(key, entry);
+            return entry != null || pinnedCache.containsKey(key);
+        }
+    }
+
+    /**
+     * Unpins a record, writes it back if it has changed, and lets it be evicted again.
+     *
+     * @param key the key of the record
+     * @return a future that completes when the record has been written, if it had changed
+     */
+    @NotNull
+    public CompletableFuture<Void> unpin(@NotNull K key) {
+        JsonElement snapshot;
+        Entry<V> writeEntry;
+        synchronized (cacheLock) {
+            Entry<V> entry = pinnedCache.remove(key);
+            if (entry != null) unpinnedCache.put(key, entry);
+            else entry = unpinnedCache.get(key);
+            if (entry == null) return CompletableFuture.completedFuture(null);
+            if (!entry.dirty) {
+                evict();
+                return CompletableFuture.completedFuture(null);
+            }
+            entry.dirty = false;
+            snapshot = entry.value == null ? null : gson.toJsonTree(entry.value, valueType);
+            writeEntry = entry;
+            evict();
+        }
+        return writeBack(key, writeEntry, snapshot);
+    }
+
+    /**
+     * Writes back all changed records in the cache.
+     *
+     * @return a future that completes when all changed records have been written
+     */
+    @NotNull
+    public CompletableFuture<Void> flush() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        synchronized (cacheLock) {
+            for (Map<K, Entry<V>> entries : Arrays.asList(pinnedCache, unpinnedCache)) {
+                for (Map.Entry<K, Entry<V>> mapEntry : entries.entrySet()) {
+                    Entry<V> entry = mapEntry.getValue();
+                    if (!entry.dirty) continue;
+                    entry.dirty = false;
+                    JsonElement snapshot = entry.value == null ? null : gson.toJsonTree(entry.value, valueType);
+                    futures.add(writeBack(mapEntry.getKey(), entry, snapshot));
+                }
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Takes all changed records in the cache without serializing them, and returns one task per batch of records that
+     * serializes and writes them on the flushing thread. The records are referenced directly, since they are only
+     * modified on the main thread, which waits for the flush. Each record is written after the pending write of its
+     * key, and later writes and loads of the key wait for it in turn.
+     */
+    @NotNull
+    @Override
+    public List<Flush> prepareFlush() {
+        List<Flush> flushes = new ArrayList<>();
+        List<Flush> batch = new ArrayList<>();
+        synchronized (cacheLock) {
+            for (Map<K, Entry<V>> entries : Arrays.asList(pinnedCache, unpinnedCache)) {
+                for (Map.Entry<K, Entry<V>> mapEntry : entries.entrySet()) {
+                    Entry<V> entry = mapEntry.getValue();
+                    if (!entry.dirty) continue;
+                    entry.dirty = false;
+                    batch.add(prepareRecordFlush(mapEntry.getKey(), entry, entry.value));
+                    if (batch.size() == FLUSH_BATCH_SIZE) {
+                        flushes.add(toBatchFlush(batch));
+                        batch = new ArrayList<>();
+                    }
+                }
+            }
+        }
+        if (!batch.isEmpty()) flushes.add(toBatchFlush(batch));
+        return flushes;
+    }
+
+    /**
+     * Registers the flush of a record as the pending write of its key, and returns the task that writes it.
+     */
+    @NotNull
+    private Flush prepareRecordFlush(@NotNull K key, @NotNull Entry<V> entry, @Nullable V value) {
+        String fileName = fileNameOf.apply(key);
+        if (value != null) existingFileNames.add(fileName);
+
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        CompletableFuture<Void> previous = pendingWrites.put(key, written);
+        written.whenComplete((result, e) -> pendingWrites.remove(key, written));
+        return () -> {
+            try {
+                if (previous != null) previous.exceptionally(e -> null).join();
+                writeRecord(fileName, entry, value, valueType);
+                written.complete(null);
+            } catch (Throwable e) {
+                written.completeExceptionally(e);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Combines the flushes of a batch of records into one task, which writes all of them even if some fail.
+     */
+    @NotNull
+    private static Flush toBatchFlush(@NotNull List<Flush> batch) {
+        return () -> {
+            Exception failure = null;
+            for (Flush flush : batch) {
+                try {
+                    flush.run();
+                } catch (Exception e) {
+                    if (failure == null) failure = e;
+                    else failure.addSuppressed(e);
+                }
+            }
+            if (failure != null) throw failure;
+        };
+    }
+
+    /**
+     * @return the amount of records in memory
+     */
+    public int getCachedRecords() {
+        synchronized (cacheLock) {
+            return pinnedCache.size() + unpinnedCache.size();
+        }
+    }
+
+    /**
+     * Gets a cached record, marking it as recently used. Must be called while synchronized on the cache lock.
+     */
+    @Nullable
+    private Entry<V> getEntry(@NotNull K key) {
+        Entry<V> entry = unpinnedCache.get(key);
+        return entry != null ? entry : pinnedCache.get(key);
+    }
+
+    /**
+     * Evicts the least recently used unpinned records while there are more than the maximum, writing back the changed
+     * ones. Pinned records are kept in a separate map, so this never has to skip over them. Must be called while
+     * synchronized on the cache lock.
+     */
+    private void evict() {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = unpinnedCache.entrySet().iterator();
+        while (unpinnedCache.size() > maxCachedRecords && iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> mapEntry = iterator.next();
+            Entry<V> entry = mapEntry.getValue();
+
+            iterator.remove();
+            if (entry.dirty) {
+                writeBack(mapEntry.getKey(), entry,
+                        entry.value == null ? null : gson.toJsonTree(entry.value, valueType));
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of a record to its file on the I/O executor, or deletes the file if the snapshot is null.
+     * Writes of the same key are chained, so they are applied in order. The last write of the file is kept in the
+     * entry, so that writing the same content again is skipped.
+     */
+    @NotNull
+    private CompletableFuture<Void> writeBack(@NotNull K key, @Nullable Entry<V> entry,
+                                              @Nullable JsonElement snapshot) {
+        String fileName = fileNameOf.apply(key);
+        if (snapshot != null) existingFileNames.add(fileName);
+
+        CompletableFuture<Void> future = pendingWrites.compute(key, (k, previous) -> {
+            CompletableFuture<Void> after = previous == null ? CompletableFuture.completedFuture(null)
+                    : previous.exceptionally(e -> null);
+            return after.thenRunAsync(() -> {
+                try {
+                    writeRecord(fileName, entry, snapshot, JsonElement.class);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, IoExecutor.get());
+        });
+        future.whenComplete((result, e) -> pendingWrites.remove(key, future));
+        return future;
+    }
+
+    /**
+     * Writes a record to its file on the calling thread, or deletes the file if the record is null.
+     */
+    private void writeRecord(@NotNull String fileName, @Nullable Entry<V> entry, @Nullable Object data,
+                             @NotNull Type type) throws IOException {
+        Path path = getPath(fileName);
+        try {
+            if (data != null) {
+                JsonFiles.WrittenFile lastWrite = entry != null ? entry.writtenFile : null;
+                JsonFiles.WrittenFile written = JsonFiles.writeIfChanged(path, data, type, gson, codec, lastWrite);
+                if (entry != null) entry.writtenFile = written;
+            } else {
+                Files.deleteIfExists(path);
+                existingFileNames.remove(fileName);
+                if (entry != null) entry.writtenFile = null;
+            }
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save " + path + ": " + e.getMessage());
+            throw e;
+        }
+    }
+
+    @NotNull
+    private Path getPath(@NotNull String fileName) {
+        String bucket = String.format("%02x",
+                Hashing.murmur3_32().hashString(fileName, StandardCharsets.UTF_8).asInt() & 0xFF);
+        return directory.resolve(bucket).resolve(fileName + EXTENSION);
+    }
+
+    private void checkStarted() {
+        if (!started) throw new IllegalStateException("The store has not been started");
+    }
+
+    private static class Entry<V> {
+        private V value;
+        private boolean dirty = false;
+        private volatile JsonFiles.WrittenFile writtenFile = null;
+
+        private Entry(@Nullable V value) {
+            this.value = value;
+        }
+    }
+
+}
@@ -0,0 +1,263 @@
+package me.gimme.gimmecore.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * A ranked collection of keys with scores, ordered with the highest score first. Keys with equal scores are ordered
+ * by who reached the score first.
+ * <p>
+ * Backed by a treap where every node knows the size of its subtree, so that updating a score, looking up a rank and
+ * getting the entry at a rank are all O(log n), and a range of entries (such as a page) is O(log n + range size)
+ * without ever sorting the whole collection.
+ *
+ * @param <K> the type of the keys, for example player IDs
+ * @param <S> the type of the scores
+ */
+public class Leaderboard<K, S extends Comparable<? super S>> {
+
+    private Map<K, Node<K, S>> nodeByKey = new HashMap<>();
+    private Node<K, S> root = null;
+    private Random random = new Random();
+    private long sequence = 0;
+
+    /**
+     * Sets the score of a key, adding the key if it is not already in the leaderboard. If the key already has an equal
+     * score, it keeps its place among the keys with that score.
+     *
+     * @param key   the key to set the score of
+     * @param score the new score
+     */
+    public void put(@NotNull K key, @NotNull S score) {
+        Node<K, S> existing = nodeByKey.get(key);
+        if (existing != null && existing.score.compareTo(score) == 0) {
+            existing.score = score;
+            return;
+        }
+        remove(key);
+
+        Node<K, S> node = new Node<>(key, score, sequence++, random.nextInt());
+        nodeByKey.put(key, node);
+
+        Node<K, S>[] split = split(root, node);
+        root = merge(merge(split[0], node), split[1]);
+    }
+
+    /**
+     * Removes a key from the leaderboard.
+     *
+     * @param key the key to remove
+     * @return true if the key was in the leaderboard
+     */
+    public boolean remove(@NotNull K key) {
+        Node<K, S> node = nodeByKey.remove(key);
+        if (node == null) return false;
+
+        root = remove(root, node);
+        return true;
+    }
+
+    /**
+     * @param key the key to get the score of
+     * @return the score of the key, or null if the key is not in the leaderboard
+     */
+    @Nullable
+    public S getScore(@NotNull K key) {
+        Node<K, S> node = nodeByKey.get(key);
+        return node == null ? null : node.score;
+    }
+
+    /**
+     * Returns the rank of a key, where the key with the highest score has rank 1.
+     *
+     * @param key the key to get the rank of
+     * @return the rank of the key, or -1 if the key is not in the leaderboard
+     */
+    public int getRank(@NotNull K key) {
+        Node<K, S> target = nodeByKey.get(key);
+        if (target == null) return -1;
+
+        int index = 0;
+        Node<K, S> node = root;
+        while (node != null) {
+            int c = compare(target, node);
+            if (c < 0) {
+                node = node.left;
+            } else {
+                index += size(node.left);
+                if (c == 0) break;
+                index++;
+                node = node.right;
+            }
+        }
+        return index + 1;
+    }
+
+    /**
+     * Returns the entries ranked from the specified index (first place = 0) and onwards.
+     *
+     * @param fromIndex the index of the first entry to get
+     * @param count     the maximum amount of entries to get
+     * @return the entries in the range, ordered by rank
+     */
+    @NotNull
+    public List<Entry<K, S>> getRange(int fromIndex, int count) {
+        if (fromIndex < 0 || count <= 0 || fromIndex >= size()) return new ArrayList<>();
+
+        List<Entry<K, S>> entries = new ArrayList<>(Math.min(count, size() - fromIndex));
+        Deque<Node<K, S>> stack = new ArrayDeque<>();
+
+        Node<K, S> node = root;
+        int skip = fromIndex;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (skip < leftSize) {
+                stack.push(node);
+                node = node.left;
+            } else if (skip == leftSize) {
+                stack.push(node);
+                break;
+            } else {
+                skip -= leftSize + 1;
+                node = node.right;
+            }
+        }
+
+        int rank = fromIndex + 1;
+        while (!stack.isEmpty() && entries.size() < count) {
+            node = stack.pop();
+            entries.add(new Entry<>(node.key, node.score, rank++));
+
+            node = node.right;
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @return the amount of keys in the leaderboard
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * @param key the key to check
+     * @return if the key is in the leaderboard
+     */
+    public boolean contains(@NotNull K key) {
+        return nodeByKey.containsKey(key);
+    }
+
+    /**
+     * Removes all keys from the leaderboard.
+     */
+    public void clear() {
+        nodeByKey.clear();
+        root = null;
+    }
+
+    private int compare(@NotNull Node<K, S> a, @NotNull Node<K, S> b) {
+        int c = b.score.compareTo(a.score);
+        if (c != 0) return c;
+        return Long.compare(a.sequence, b.sequence);
+    }
+
+    /**
+     * Splits the subtree into the nodes ordered before the specified node and the nodes ordered after it.
+     */
+    @SuppressWarnings("unchecked")
+    @NotNull
+    private Node<K, S>[] split(@Nullable Node<K, S> node, @NotNull Node<K, S> pivot) {
+        if (node == null) return new Node[]{null, null};
+
+        if (compare(node, pivot) < 0) {
+            Node<K, S>[] split = split(node.right, pivot);
+            node.right = split[0];
+            node.update();
+            split[0] = node;
+            return split;
+        } else {
+            Node<K, S>[] split = split(node.left, pivot);
+            node.left = split[1];
+            node.update();
+            split[1] = node;
+            return split;
+        }
+    }
+
+    @Nullable
+    private Node<K, S> merge(@Nullable Node<K, S> left, @Nullable Node<K, S> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        } else {
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+    }
+
+    @Nullable
+    private Node<K, S> remove(@Nullable Node<K, S> node, @NotNull Node<K, S> target) {
+        if (node == null) return null;
+
+        int c = compare(target, node);
+        if (c == 0) return merge(node.left, node.right);
+
+        if (c < 0) node.left = remove(node.left, target);
+        else node.right = remove(node.right, target);
+        node.update();
+        return node;
+    }
+
+    private static int size(@Nullable Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * A key with its score and rank at the time it was retrieved.
+     */
+    public static class Entry<K, S> {
+        public final K key;
+        public final S score;
+        public final int rank;
+
+        private Entry(@NotNull K key, @NotNull S score, int rank) {
+            this.key = key;
+            this.score = score;
+            this.rank = rank;
+        }
+    }
+
+    private static class Node<K, S> {
+        private K key;
+        private S score;
+        private long sequence;
+        private int priority;
+        private int size = 1;
+        private Node<K, S> left;
+        private Node<K, S> right;
+
+        private Node(@NotNull K key, @NotNull S score, long sequence, int priority) {
+            this.key = key;
+            this.score = score;
+            this.sequence = sequence;
+            this.priority = priority;
+        }
+
+        private void update() {
+            size = 1 + size(left) + size(right);
+        }
+    }
+
+}
@@ -37,6 +37,37 @@ public class Pageifier {
         return new PageResult<>(content, page, totalPages);
     }
 
+    /**
+     * Returns the requested page (first page = 1) of a leaderboard, with content, page number and total pages. If page
+     * number <= 0 or if page number > total pages, an empty content list is returned.
+     * <p>
+     * Only the entries on the requested page are retrieved, the leaderboard is never sorted or copied as a whole.
+     *
+     * @param leaderboard the leaderboard to get the page from
+     * @param pageSize    entries per page or <= 0 for unlimited
+     * @param page        the page number to get the page at
+     * @param <K>         the type of the leaderboard keys
+     * @param <S>         the type of the leaderboard scores
+     * @return the ranked entries on the page with page number and total pages with the specified page size
+     */
+    @NotNull
+    public static <K, S extends Comparable<? super S>> Pageifier.PageResult<Leaderboard.Entry<K, S>> getPage(
+            @NotNull Leaderboard<K, S> leaderboard, int pageSize, int page) {
+        int size = leaderboard.size();
+        if (pageSize <= 0) pageSize = Math.max(size, 1);
+
+        int totalPages = size / pageSize + ((size % pageSize == 0) ? 0 : 1);
+
+        List<Leaderboard.Entry<K, S>> content;
+        if (page <= 0 || page > totalPages) {
+            content = new ArrayList<>();
+        } else {
+            content = leaderboard.getRange((page - 1) * pageSize, pageSize);
+        }
+
+        return new PageResult<>(content, page, totalPages);
+    }
+
     public static class PageResult<E> {
         public final List<E> content;
         public final int page;
@@ -0,0 +1,199 @@
+package me.gimme.gimmecore.util;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A registry of the persistent stores of all plugins, which flushes them in parallel when their plugins are disabled.
+ * <p>
+ * When a plugin is being disabled (right before its own {@code onDisable}), all of its registered stores are first
+ * snapshotted one after another on the main thread, and the snapshots are then serialized and written in parallel on
+ * one thread per core, where a store can split its snapshot into several tasks. The flush waits for the writes until a
+ * deadline, and logs how long each store took. A store that failed or did not finish in time is logged as an error,
+ * since its latest changes may have been lost; its remaining tasks are still left to finish in the background.
+ * <p>
+ * Plugins should therefore not save their registered stores themselves in {@code onDisable}, but they can still close
+ * them there. Registering and flushing should only be done on the main thread.
+ */
+public class PersistenceRegistry implements Listener {
+
+    private static final long DEFAULT_DEADLINE_MILLIS = 15000;
+
+    private Plugin plugin;
+    private Map<PersistentStore, Registration> registrationByStore = new LinkedHashMap<>();
+    private long deadlineMillis = DEFAULT_DEADLINE_MILLIS;
+
+    /**
+     * @param plugin the plugin to log with
+     */
+    public PersistenceRegistry(@NotNull Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Registers a store to be flushed when its owner plugin is disabled. The store is unregistered after that flush.
+     *
+     * @param owner the plugin that owns the store
+     * @param name  the name of the store in the flush reports, such as its file path
+     * @param store the store to register
+     */
+    public void register(@NotNull Plugin owner, @NotNull String name, @NotNull PersistentStore store) {
+        registrationByStore.put(store, new Registration(owner, name, store));
+    }
+
+    /**
+     * Unregisters a store, so that it is no longer flushed when its owner plugin is disabled.
+     *
+     * @param store the store to unregister
+     */
+    public void unregister(@NotNull PersistentStore store) {
+        registrationByStore.remove(store);
+    }
+
+    /**
+     * @param deadlineMillis the maximum time to wait for the stores to be written in a flush, in milliseconds
+     */
+    public void setDeadline(long deadlineMillis) {
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * Flushes all registered stores of a plugin in parallel and waits for them until the deadline.
+     *
+     * @param owner the plugin whose stores to flush
+     * @return if all stores were written, false if any of them failed or did not finish in time
+     */
+    public boolean flush(@NotNull Plugin owner) {
+        List<Registration> registrations = new ArrayList<>();
+        for (Registration registration : registrationByStore.values()) {
+            if (registration.owner == owner) registrations.add(registration);
+        }
+        return flush(registrations);
+    }
+
+    /**
+     * Flushes all registered stores in parallel and waits for them until the deadline.
+     *
+     * @return if all stores were written, false if any of them failed or did not finish in time
+     */
+    public boolean flushAll() {
+        return flush(new ArrayList<>(registrationByStore.values()));
+    }
+
+    private boolean flush(@NotNull List<Registration> registrations) {
+        if (registrations.isEmpty()) return true;
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        List<String> failures = new ArrayList<>();
+
+        // Snapshot everything first, so that all stores are saved as of the same moment
+        Map<Registration, List<PersistentStore.Flush>> flushesByRegistration = new LinkedHashMap<>();
+        int flushCount = 0;
+        for (Registration registration : registrations) {
+            try {
+                List<PersistentStore.Flush> flushes = registration.store.prepareFlush();
+                flushesByRegistration.put(registration, flushes);
+                flushCount += flushes.size();
+            } catch (Throwable e) {
+                failures.add(registration + " could not be snapshotted: " + e);
+            }
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(flushCount, Runtime.getRuntime().availableProcessors())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "GimmeCore Flush #" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        // Each task returns when it started and finished, so a store is timed from its first start to its last finish
+        Map<Registration, List<Future<long[]>>> futuresByRegistration = new LinkedHashMap<>();
+        for (Map.Entry<Registration, List<PersistentStore.Flush>> entry : flushesByRegistration.entrySet()) {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (PersistentStore.Flush flush : entry.getValue()) {
+                futures.add(pool.submit(() -> {
+                    long flushStart = System.nanoTime();
+                    flush.run();
+                    return new long[]{flushStart, System.nanoTime()};
+                }));
+            }
+            futuresByRegistration.put(entry.getKey(), futures);
+        }
+        // Tasks that do not finish in time are not cancelled, since later writes of the same data may wait for them
+        pool.shutdown();
+
+        for (Map.Entry<Registration, List<Future<long[]>>> entry : futuresByRegistration.entrySet()) {
+            Registration registration = entry.getKey();
+            long firstStart = Long.MAX_VALUE;
+            long lastFinish = Long.MIN_VALUE;
+            try {
+                for (Future<long[]> future : entry.getValue()) {
+                    long[] times = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    firstStart = Math.min(firstStart, times[0]);
+                    lastFinish = Math.max(lastFinish, times[1]);
+                }
+                long nanos = entry.getValue().isEmpty() ? 0 : lastFinish - firstStart;
+                plugin.getLogger().info("Flushed " + registration + " in " + toMillis(nanos) + " ms");
+            } catch (TimeoutException e) {
+                failures.add(registration + " did not finish within " + deadlineMillis + " ms");
+            } catch (ExecutionException e) {
+                failures.add(registration + " failed: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.add(registration + " was interrupted");
+            }
+        }
+
+        long totalMillis = toMillis(System.nanoTime() - start);
+        if (failures.isEmpty()) {
+            plugin.getLogger().info("Flushed " + registrations.size() + " stores in " + totalMillis + " ms");
+            return true;
+        }
+
+        for (String failure : failures) {
+            plugin.getLogger().severe("DATA MAY HAVE BEEN LOST: " + failure);
+        }
+        plugin.getLogger().severe(failures.size() + " of " + registrations.size() + " stores were not saved (" +
+                totalMillis + " ms)");
+        return false;
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onPluginDisable(PluginDisableEvent event) {
+        Plugin owner = event.getPlugin();
+        flush(owner);
+        registrationByStore.values().removeIf(registration -> registration.owner == owner);
+    }
+
+    private static class Registration {
+        private Plugin owner;
+        private String name;
+        private PersistentStore store;
+
+        private Registration(@NotNull Plugin owner, @NotNull String name, @NotNull PersistentStore store) {
+            this.owner = owner;
+            this.name = name;
+            this.store = store;
+        }
+
+        @Override
+        public String toString() {
+            return owner.getName() + "/" + name;
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package me.gimme.gimmecore.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * A store of persisted data that can be registered in the {@link PersistenceRegistry}, to be flushed together with all
+ * other stores when its plugin is disabled.
+ */
+public interface PersistentStore {
+
+    /**
+     * Takes a snapshot of the unsaved data of the store, and returns the tasks that write it. Called on the main
+     * thread, so it should only take cheap copies or references; serializing and writing belong in the returned tasks.
+     * The main thread waits for the tasks until they are done or the flush deadline has passed, so data that is only
+     * modified on the main thread can be referenced directly instead of copied.
+     * <p>
+     * The tasks are run in parallel with each other and with the tasks of all other stores, so a store with a lot of
+     * independent data, such as one file per record, can return one task per batch of it.
+     *
+     * @return the tasks that serialize and write the snapshot, which are run on other threads
+     */
+    @NotNull
+    List<Flush> prepareFlush();
+
+    /**
+     * The part of a flush that serializes and writes a snapshot.
+     */
+    interface Flush {
+        void run() throws Exception;
+    }
+
+}
@@ -0,0 +1,114 @@
+package me.gimme.gimmecore.util;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A keyed save store of per-player records, which loads a player's record asynchronously while they log in, keeps it
+ * in memory while they are online, and writes it back when they quit.
+ * <p>
+ * The record is pinned as soon as it has been loaded, so that it cannot be evicted before the player joins. It is
+ * unpinned again if the login is disallowed, or if the player has not joined within a minute.
+ * <p>
+ * Must be registered as a listener.
+ *
+ * @param <V> the type of the records
+ */
+public class PlayerSaveStore<V> extends KeyedSaveStore<UUID, V> implements Listener {
+
+    private static final long LOGIN_TIMEOUT_TICKS = 60 * 20;
+
+    private Plugin plugin;
+    private Map<UUID, Object> loginByPlayer = new ConcurrentHashMap<>();
+
+    /**
+     * @param plugin        the plugin whose data folder to store the files in
+     * @param directoryPath the path to the directory of the record files, relative to the plugin's data folder
+     * @param valueType     the type of the records
+     */
+    public PlayerSaveStore(@NotNull Plugin plugin, @NotNull String directoryPath, @NotNull Type valueType) {
+        super(plugin, directoryPath, valueType, UUID::toString);
+        this.plugin = plugin;
+    }
+
+    @NotNull
+    @Override
+    public PlayerSaveStore<V> start() throws IOException {
+        super.start();
+        return this;
+    }
+
+    /**
+     * @param player the online player
+     * @return the record of the player, or null if the player has no record
+     */
+    @Nullable
+    public V get(@NotNull Player player) {
+        return getIfLoaded(player.getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        UUID playerId = event.getUniqueId();
+        try {
+            loadAndPinNow(playerId);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not load the data of " + event.getName() + ": " + e.getMessage());
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, "Could not load your data, please try again");
+            return;
+        }
+
+        Object login = new Object();
+        loginByPlayer.put(playerId, login);
+        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
+            if (loginByPlayer.remove(playerId, login)) unpin(playerId);
+        }, LOGIN_TIMEOUT_TICKS);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onPlayerLogin(PlayerLoginEvent event) {
+        if (event.getResult() == PlayerLoginEvent.Result.ALLOWED) return;
+
+        UUID playerId = event.getPlayer().getUniqueId();
+        if (loginByPlayer.remove(playerId) != null) unpin(playerId);
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    private void onPlayerJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        UUID playerId = player.getUniqueId();
+        loginByPlayer.remove(playerId);
+        if (pin(playerId)) return;
+
+        // Not loaded at login, such as when the store was started after the player logged in
+        try {
+            loadAndPinNow(playerId);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not load the data of " + player.getName() + ": " + e.getMessage());
+            player.kickPlayer("Could not load your data, please try again");
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onPlayerQuit(PlayerQuitEvent event) {
+        unpin(event.getPlayer().getUniqueId());
+    }
+
+}
@@ -0,0 +1,456 @@
+package me.gimme.gimmecore.util;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.ByteStreams;
+import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.*;
+
+/**
+ * The storage format of a save file: a payload format (JSON text or a compact binary encoding of the JSON tree) and a
+ * compression.
+ * <p>
+ * Every codec except {@link #PLAIN_JSON} starts the file with a header identifying the codec, so the codec of a file
+ * is detected when it is read. Files without a header, such as all files saved before codecs existed, are read as
+ * plain JSON, so existing files can be migrated by reading them and saving them again with another codec.
+ */
+public final class SaveCodec {
+
+    /**
+     * The payload format of a codec.
+     */
+    public enum Format {
+        /**
+         * JSON text.
+         */
+        JSON,
+        /**
+         * A binary encoding of the JSON tree, with a tag for the type of every value and each object key written only
+         * once and referenced by index after that.
+         */
+        BINARY
+    }
+
+    /**
+     * The compression of a codec.
+     */
+    public enum Compression {
+        NONE,
+        GZIP,
+        DEFLATE
+    }
+
+    /**
+     * JSON without a header, pretty-printed if the Gson object used is. This is the format of files saved before
+     * codecs existed.
+     */
+    public static final SaveCodec PLAIN_JSON = new SaveCodec("PLAIN_JSON", Format.JSON, Compression.NONE, false);
+    public static final SaveCodec COMPACT_JSON = new SaveCodec("COMPACT_JSON", Format.JSON, Compression.NONE, true);
+    public static final SaveCodec GZIP_JSON = new SaveCodec("GZIP_JSON", Format.JSON, Compression.GZIP, true);
+    public static final SaveCodec DEFLATE_JSON =
+            new SaveCodec("DEFLATE_JSON", Format.JSON, Compression.DEFLATE, true);
+    public static final SaveCodec BINARY = new SaveCodec("BINARY", Format.BINARY, Compression.NONE, true);
+    public static final SaveCodec GZIP_BINARY = new SaveCodec("GZIP_BINARY", Format.BINARY, Compression.GZIP, true);
+    public static final SaveCodec DEFLATE_BINARY =
+            new SaveCodec("DEFLATE_BINARY", Format.BINARY, Compression.DEFLATE, true);
+
+    private static final byte[] MAGIC = {'G', 'C', 'S', 'F'};
+    private static final byte HEADER_VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 3;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_FALSE = 1;
+    private static final byte TAG_TRUE = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_STRING = 5;
+    private static final byte TAG_BIG_NUMBER = 6;
+    private static final byte TAG_ARRAY = 7;
+    private static final byte TAG_OBJECT = 8;
+
+    private final String name;
+    private final Format format;
+    private final Compression compression;
+    private final boolean header;
+
+    private SaveCodec(@NotNull String name, @NotNull Format format, @NotNull Compression compression,
+                      boolean header) {
+        this.name = name;
+        this.format = format;
+        this.compression = compression;
+        this.header = header;
+    }
+
+    /**
+     * @param format      the payload format
+     * @param compression the compression
+     * @return the codec with the format and compression, with a header
+     */
+    @NotNull
+    public static SaveCodec of(@NotNull Format format, @NotNull Compression compression) {
+        for (SaveCodec codec : new SaveCodec[]{COMPACT_JSON, GZIP_JSON, DEFLATE_JSON, BINARY, GZIP_BINARY,
+                DEFLATE_BINARY}) {
+            if (codec.format == format && codec.compression == compression) return codec;
+        }
+        throw new IllegalArgumentException();
+    }
+
+    @NotNull
+    public Format getFormat() {
+        return format;
+    }
+
+    @NotNull
+    public Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Reads the codec header at the start of the stream, or detects a file without a header as {@link #PLAIN_JSON}
+     * and leaves the stream unread.
+     *
+     * @param in the stream to read, which must support mark and reset
+     * @return the codec of the stream
+     * @throws IOException if the stream could not be read or has an unknown header
+     */
+    @NotNull
+    static SaveCodec detect(@NotNull InputStream in) throws IOException {
+        in.mark(HEADER_LENGTH);
+        byte[] bytes = new byte[HEADER_LENGTH];
+        int length = ByteStreams.read(in, bytes, 0, HEADER_LENGTH);
+
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (i >= length || bytes[i] != MAGIC[i]) {
+                in.reset();
+                return PLAIN_JSON;
+            }
+        }
+        if (length < HEADER_LENGTH || bytes[4] > HEADER_VERSION ||
+                bytes[5] < 0 || bytes[5] >= Format.values().length ||
+                bytes[6] < 0 || bytes[6] >= Compression.values().length) {
+            throw new IOException("Unknown save file header");
+        }
+        return of(Format.values()[bytes[5]], Compression.values()[bytes[6]]);
+    }
+
+    /**
+     * Writes the header and the encoded object to the stream. A compressed stream is closed afterwards, to release the
+     * native memory of its compressor.
+     *
+     * @return the hash of the uncompressed payload
+     */
+    @NotNull
+    HashCode encode(@NotNull OutputStream out, @Nullable Object object, @NotNull Type type, @NotNull Gson gson,
+                    @NotNull HashFunction hashFunction) throws IOException {
+        if (header) {
+            out.write(MAGIC);
+            out.write(new byte[]{HEADER_VERSION, (byte) format.ordinal(), (byte) compression.ordinal()});
+        }
+
+        DeflaterOutputStream compressed = compress(out);
+        try {
+            HashingOutputStream hashing = new HashingOutputStream(hashFunction, compressed != null ? compressed : out);
+            writePayload(hashing, object, type, gson);
+            hashing.flush();
+            if (compressed != null) compressed.finish();
+            out.flush();
+            return hashing.hash();
+        } finally {
+            if (compressed != null) compressed.close();
+        }
+    }
+
+    /**
+     * @return the hash of the uncompressed payload of the encoded object, computed without writing anything
+     */
+    @NotNull
+    HashCode hash(@Nullable Object object, @NotNull Type type, @NotNull Gson gson, @NotNull HashFunction hashFunction)
+            throws IOException {
+        HashingOutputStream hashing = new HashingOutputStream(hashFunction, ByteStreams.nullOutputStream());
+        writePayload(hashing, object, type, gson);
+        return hashing.hash();
+    }
+
+    /**
+     * Reads and binds the payload of a stream positioned after the header. A compressed stream is closed afterwards, to
+     * release the native memory of its decompressor.
+     */
+    @Nullable
+    <T> T decode(@NotNull InputStream in, @NotNull Type type, @NotNull Gson gson) throws IOException {
+        InputStream payload = decompress(in);
+        try {
+            if (format == Format.BINARY) {
+                JsonElement tree = readBinary(new DataInputStream(new BufferedInputStream(payload)));
+                return gson.fromJson(tree, type);
+            }
+
+            JsonReader reader = gson.newJsonReader(new InputStreamReader(payload, StandardCharsets.UTF_8));
+            try {
+                reader.peek();
+            } catch (EOFException e) {
+                return null;
+            }
+            return gson.fromJson(reader, type);
+        } catch (JsonIOException | JsonSyntaxException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            if (payload != in) payload.close();
+        }
+    }
+
+    /**
+     * @return the compressing stream, which ends its deflater when it is closed, or null if there is no compression
+     */
+    @Nullable
+    private DeflaterOutputStream compress(@NotNull OutputStream out) throws IOException {
+        switch (compression) {
+            case GZIP:
+                return new GZIPOutputStream(out, 64 * 1024);
+            case DEFLATE:
+                // Unlike the stream's own deflater, a deflater passed to it is not ended when the stream is closed
+                return new DeflaterOutputStream(out, new Deflater(), 64 * 1024) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            def.end();
+                        }
+                    }
+                };
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the decompressing stream, which ends its inflater when it is closed, or the stream itself if there is
+     * no compression
+     */
+    @NotNull
+    private InputStream decompress(@NotNull InputStream in) throws IOException {
+        switch (compression) {
+            case GZIP:
+                return new GZIPInputStream(in, 64 * 1024);
+            case DEFLATE:
+                return new InflaterInputStream(in, new Inflater(), 64 * 1024) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inf.end();
+                        }
+                    }
+                };
+            default:
+                return in;
+        }
+    }
+
+    private void writePayload(@NotNull OutputStream out, @Nullable Object object, @NotNull Type type,
+                              @NotNull Gson gson) throws IOException {
+        if (format == Format.BINARY) {
+            JsonElement tree = object instanceof JsonElement ? (JsonElement) object : gson.toJsonTree(object, type);
+            DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+            writeBinary(dataOut, tree, new HashMap<>());
+            dataOut.flush();
+            return;
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonWriter jsonWriter = gson.newJsonWriter(writer);
+        if (header) jsonWriter.setIndent("");
+        try {
+            gson.toJson(object, type, jsonWriter);
+        } catch (JsonIOException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        jsonWriter.flush();
+    }
+
+    private static void writeBinary(@NotNull DataOutputStream out, @NotNull JsonElement element,
+                                    @NotNull Map<String, Integer> keyIndices) throws IOException {
+        if (element.isJsonNull()) {
+            out.writeByte(TAG_NULL);
+        } else if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            out.writeByte(TAG_ARRAY);
+            writeVarLong(out, array.size());
+            for (JsonElement child : array) {
+                writeBinary(out, child, keyIndices);
+            }
+        } else if (element.isJsonObject()) {
+            JsonObject object = element.getAsJsonObject();
+            out.writeByte(TAG_OBJECT);
+            writeVarLong(out, object.entrySet().size());
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                Integer keyIndex = keyIndices.get(entry.getKey());
+                if (keyIndex == null) {
+                    keyIndices.put(entry.getKey(), keyIndices.size());
+                    writeVarLong(out, 0);
+                    writeString(out, entry.getKey());
+                } else {
+                    writeVarLong(out, keyIndex + 1);
+                }
+                writeBinary(out, entry.getValue(), keyIndices);
+            }
+        } else {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                out.writeByte(primitive.getAsBoolean() ? TAG_TRUE : TAG_FALSE);
+            } else if (primitive.isString()) {
+                out.writeByte(TAG_STRING);
+                writeString(out, primitive.getAsString());
+            } else {
+                writeNumber(out, primitive.getAsNumber());
+            }
+        }
+    }
+
+    private static void writeNumber(@NotNull DataOutputStream out, @NotNull Number number) throws IOException {
+        if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+            out.writeByte(TAG_LONG);
+            writeVarLong(out, zigZag(number.longValue()));
+        } else if (number instanceof Double || number instanceof Float) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble(number.doubleValue());
+        } else {
+            String text = number.toString();
+            try {
+                long value = Long.parseLong(text);
+                out.writeByte(TAG_LONG);
+                writeVarLong(out, zigZag(value));
+                return;
+            } catch (NumberFormatException ignored) {
+            }
+
+            double value = number.doubleValue();
+            if (!Double.isInfinite(value) && new BigDecimal(text).compareTo(new BigDecimal(value)) == 0) {
+                out.writeByte(TAG_DOUBLE);
+                out.writeDouble(value);
+            } else {
+                out.writeByte(TAG_BIG_NUMBER);
+                writeString(out, text);
+            }
+        }
+    }
+
+    @NotNull
+    private static JsonElement readBinary(@NotNull DataInputStream in) throws IOException {
+        return readBinary(in, new ArrayList<>());
+    }
+
+    @NotNull
+    private static JsonElement readBinary(@NotNull DataInputStream in, @NotNull List<String> keys)
+            throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return JsonNull.INSTANCE;
+            case TAG_FALSE:
+                return new JsonPrimitive(false);
+            case TAG_TRUE:
+                return new JsonPrimitive(true);
+            case TAG_LONG:
+                return new JsonPrimitive(unZigZag(readVarLong(in)));
+            case TAG_DOUBLE:
+                return new JsonPrimitive(in.readDouble());
+            case TAG_STRING:
+                return new JsonPrimitive(readString(in));
+            case TAG_BIG_NUMBER:
+                String text = readString(in);
+                return new JsonPrimitive(text.contains(".") || text.contains("e") || text.contains("E")
+                        ? new BigDecimal(text) : new BigInteger(text));
+            case TAG_ARRAY: {
+                long size = readVarLong(in);
+                JsonArray array = new JsonArray();
+                for (long i = 0; i < size; i++) {
+                    array.add(readBinary(in, keys));
+                }
+                return array;
+            }
+            case TAG_OBJECT: {
+                long size = readVarLong(in);
+                JsonObject object = new JsonObject();
+                for (long i = 0; i < size; i++) {
+                    long keyReference = readVarLong(in);
+                    String key;
+                    if (keyReference == 0) {
+                        key = readString(in);
+                        keys.add(key);
+                    } else {
+                        if (keyReference > keys.size()) throw new IOException("Invalid key reference");
+                        key = keys.get((int) keyReference - 1);
+                    }
+                    object.add(key, readBinary(in, keys));
+                }
+                return object;
+            }
+            default:
+                throw new IOException("Invalid value tag " + tag);
+        }
+    }
+
+    private static void writeString(@NotNull DataOutputStream out, @NotNull String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    @NotNull
+    private static String readString(@NotNull DataInputStream in) throws IOException {
+        long length = readVarLong(in);
+        if (length > Integer.MAX_VALUE) throw new IOException("Invalid string length");
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(@NotNull DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(@NotNull DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Invalid variable-length number");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
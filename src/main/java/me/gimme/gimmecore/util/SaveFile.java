@@ -1,56 +1,158 @@
 package me.gimme.gimmecore.util;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class SaveFile<T> {
+public class SaveFile<T> implements PersistentStore {
     public interface DataSupplier<T> {
         T fetchData();
     }
 
+    /**
+     * A data supplier that returns a detached copy of the data, which is not modified after it has been returned, such
+     * as a shallow copy of the fields of the data or an immutable value. Making the copy is the only work done on the
+     * main thread; the copy is serialized and written off the main thread, skipping the JSON tree snapshot that is
+     * otherwise taken on the main thread.
+     */
+    public interface SnapshotSupplier<T> extends DataSupplier<T> {
+    }
+
     private Plugin plugin;
     private String filePath;
     private Class<T> clazz;
+    private Gson gson;
+    private SaveCodec codec = SaveCodec.PLAIN_JSON;
+
+    private final Object writeLock = new Object();
+    private JsonFiles.WrittenFile writtenFile = null;
+    private final Object asyncLock = new Object();
+    private boolean saving = false;
+    private Object pendingSnapshot = null;
+    private CompletableFuture<Void> pendingFuture = null;
+    private DataSupplier<T> deferredAutosave = null;
+    private DataSupplier<T> dataSupplier = null;
+    private boolean dirtyTracking = false;
+    private AtomicBoolean dirty = new AtomicBoolean(true);
+    private SaveMetrics metrics = new SaveMetrics();
 
     public SaveFile(@NotNull Plugin plugin, @NotNull String filePath, @NotNull Class<T> clazz) {
+        this(plugin, filePath, clazz, JsonFiles.PRETTY_GSON);
+    }
+
+    /**
+     * @param plugin   the plugin whose data folder to save the file in
+     * @param filePath the path to the file, relative to the plugin's data folder
+     * @param clazz    the class of the saved data
+     * @param gson     the Gson object to use in the serializing and deserializing, which can be shared between files
+     */
+    public SaveFile(@NotNull Plugin plugin, @NotNull String filePath, @NotNull Class<T> clazz, @NotNull Gson gson) {
         this.plugin = plugin;
         this.filePath = filePath;
         this.clazz = clazz;
+        this.gson = gson;
     }
 
     public void save(@NotNull T data) {
-        String json = new GsonBuilder().setPrettyPrinting().create().toJson(data);
-
         try {
-            Path path = getSavePath();
-            Files.createDirectories(path.getParent());
-            Files.write(path, json.getBytes());
+            write(data);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Sets the codec that the file is saved with. Files are always loaded with the codec detected from their header,
+     * so changing the codec migrates the file on its next save, see {@link #migrate()}.
+     *
+     * @param codec the codec to save the file with
+     */
+    public void setCodec(@NotNull SaveCodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Migrates an existing save file that was saved with another codec to the codec of this save file, by loading it
+     * and saving it again immediately.
+     *
+     * @return if the file was migrated, false if it does not exist or already has the codec of this save file
+     * @throws IOException if the file could not be loaded or saved
+     */
+    public boolean migrate() throws IOException {
+        if (!existsSaveFile()) return false;
+        synchronized (writeLock) {
+            Path path = getSavePath();
+            if (JsonFiles.detectCodec(path) == codec) return false;
+
+            T data = JsonFiles.read(path, clazz, gson);
+            JsonFiles.write(path, data, clazz, gson, codec);
+            writtenFile = null;
+            return true;
+        }
+    }
+
+    /**
+     * Marks the data as changed, so that it is saved by the next autosave when dirty tracking is enabled.
+     */
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    /**
+     * Sets if autosaves should be skipped entirely while the data has not been marked as changed with
+     * {@link #markDirty()}. Regardless of this setting, a save that serializes to exactly the same content as the
+     * last save never writes to disk.
+     *
+     * @param dirtyTracking if autosaves should only save data that has been marked as changed
+     */
+    public void setDirtyTracking(boolean dirtyTracking) {
+        this.dirtyTracking = dirtyTracking;
+    }
+
+    /**
+     * Saves the data asynchronously. The data is serialized and written on the I/O executor, so it must be a detached
+     * copy (or an immutable object) that is not modified after it has been passed, see {@link SnapshotSupplier}.
+     * <p>
+     * If a save of this file is already in progress, the save is coalesced with any other saves requested in the
+     * meantime into a single save of the latest data, which runs when the current save has finished.
+     *
+     * @param data a detached copy of the data to save
+     * @return a future that completes when the data (or later data that replaced it) has been written
+     */
+    @NotNull
+    public CompletableFuture<Void> saveAsync(@NotNull T data) {
+        return submit(data, IoExecutor.get());
+    }
+
+    /**
+     * Loads the data on the I/O executor.
+     *
+     * @return a future with the loaded data, or null if there is no save file or it could not be read
+     */
+    @NotNull
+    public CompletableFuture<T> loadAsync() {
+        return CompletableFuture.supplyAsync(this::load, IoExecutor.get());
+    }
+
     @Nullable
     public T load() {
         if (existsSaveFile()) {
             try {
-                FileReader reader = new FileReader(getSavePath().toString());
-                JsonElement element = new JsonParser().parse(reader);
-                reader.close();
-
-                return new Gson().fromJson(element, clazz);
+                return JsonFiles.read(getSavePath(), clazz, gson);
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -59,15 +161,159 @@ public class SaveFile<T> {
         return null;
     }
 
+    /**
+     * Sets the supplier of the data that is saved when the file is flushed by the {@link PersistenceRegistry}. The
+     * supplier of {@link #autosave(Plugin, long, DataSupplier)} is also used for this.
+     *
+     * @param dataSupplier the supplier of the data to save
+     */
+    public void setDataSupplier(@NotNull DataSupplier<T> dataSupplier) {
+        this.dataSupplier = dataSupplier;
+    }
+
+    /**
+     * Periodically saves the data returned by the data supplier. The data is fetched on the main thread and written
+     * asynchronously. If the supplier is a {@link SnapshotSupplier}, its copy is also serialized asynchronously;
+     * otherwise the data is still being modified and has to be snapshotted into a JSON tree on the main thread, which
+     * costs about as much as serializing it.
+     *
+     * @param plugin       the plugin to run the autosave task with
+     * @param period       the period between saves in ticks
+     * @param dataSupplier the supplier of the data to save
+     */
     public void autosave(@NotNull Plugin plugin, long period, @NotNull DataSupplier<T> dataSupplier) {
+        this.dataSupplier = dataSupplier;
         new BukkitRunnable() {
             @Override
             public void run() {
-                save(dataSupplier.fetchData());
+                if (dirtyTracking && !dirty.getAndSet(false)) {
+                    metrics.skippedSerializations.incrementAndGet();
+                    return;
+                }
+
+                synchronized (asyncLock) {
+                    if (saving) {
+                        if (deferredAutosave != null) metrics.coalescedSaves.incrementAndGet();
+                        deferredAutosave = dataSupplier;
+                        return;
+                    }
+                }
+                autosave(dataSupplier);
             }
         }.runTaskTimer(plugin, period, period);
     }
 
+    private void autosave(@NotNull DataSupplier<T> dataSupplier) {
+        T data = dataSupplier.fetchData();
+        if (dataSupplier instanceof SnapshotSupplier) {
+            submit(data, IoExecutor.get());
+        } else {
+            long start = System.nanoTime();
+            JsonElement snapshot = gson.toJsonTree(data);
+            metrics.lastSnapshotNanos = System.nanoTime() - start;
+            submit(snapshot, IoExecutor.get());
+        }
+    }
+
+    /**
+     * Only fetches the data of the data supplier, see {@link #setDataSupplier(DataSupplier)}. The data is serialized
+     * and written on the flushing thread, or after the save in progress if there is one. This is also done for a
+     * supplier that is not a {@link SnapshotSupplier}, since the main thread waits for the flush; its data must however
+     * not be modified by other threads in the meantime.
+     */
+    @NotNull
+    @Override
+    public List<Flush> prepareFlush() {
+        DataSupplier<T> dataSupplier = this.dataSupplier;
+        if (dataSupplier == null || (dirtyTracking && !dirty.getAndSet(false))) return Collections.emptyList();
+
+        T data = dataSupplier.fetchData();
+        if (data == null) return Collections.emptyList();
+        return Collections.singletonList(() -> submit(data, Runnable::run).get());
+    }
+
+    /**
+     * @return the timing metrics of the saves of this file
+     */
+    @NotNull
+    public SaveMetrics getMetrics() {
+        return metrics;
+    }
+
+    @NotNull
+    private CompletableFuture<Void> submit(@NotNull Object snapshot, @NotNull Executor executor) {
+        synchronized (asyncLock) {
+            if (saving) {
+                if (pendingSnapshot != null) metrics.coalescedSaves.incrementAndGet();
+                pendingSnapshot = snapshot;
+                if (pendingFuture == null) pendingFuture = new CompletableFuture<>();
+                return pendingFuture;
+            }
+            saving = true;
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        executor.execute(() -> runSave(snapshot, future));
+        return future;
+    }
+
+    private void runSave(@NotNull Object snapshot, @NotNull CompletableFuture<Void> future) {
+        Object next = snapshot;
+        CompletableFuture<Void> nextFuture = future;
+        DataSupplier<T> deferred = null;
+
+        while (next != null) {
+            try {
+                write(next);
+                nextFuture.complete(null);
+            } catch (Throwable e) {
+                dirty.set(true);
+                metrics.failedSaves.incrementAndGet();
+                plugin.getLogger().severe("Could not save " + filePath + ": " + e);
+                nextFuture.completeExceptionally(e);
+            }
+
+            synchronized (asyncLock) {
+                next = pendingSnapshot;
+                nextFuture = pendingFuture;
+                pendingSnapshot = null;
+                pendingFuture = null;
+                if (next == null) {
+                    saving = false;
+                    deferred = deferredAutosave;
+                    deferredAutosave = null;
+                }
+            }
+        }
+
+        // An autosave that was due while saving takes its snapshot on the main thread as soon as the save is done
+        if (deferred != null && plugin.isEnabled()) {
+            DataSupplier<T> dataSupplier = deferred;
+            plugin.getServer().getScheduler().runTask(plugin, () -> autosave(dataSupplier));
+        }
+    }
+
+    /**
+     * Streams the data (or its JSON tree snapshot) into the save file.
+     */
+    private void write(@NotNull Object data) throws IOException {
+        long start = System.nanoTime();
+        synchronized (writeLock) {
+            Path path = getSavePath();
+            Class<?> type = data instanceof JsonElement ? JsonElement.class : clazz;
+            JsonFiles.WrittenFile previous = writtenFile;
+            writtenFile = JsonFiles.writeIfChanged(path, data, type, gson, codec, previous);
+            if (writtenFile == previous) {
+                metrics.skippedWrites.incrementAndGet();
+                return;
+            }
+            metrics.lastBytes = Files.size(path);
+        }
+        metrics.lastWriteNanos = System.nanoTime() - start;
+        metrics.completedSaves.incrementAndGet();
+        metrics.totalSaveNanos.addAndGet(metrics.lastWriteNanos);
+    }
+
     @NotNull
     private Path getSavePath() {
         return Paths.get(plugin.getDataFolder().getAbsolutePath(), filePath);
@@ -77,4 +323,83 @@ public class SaveFile<T> {
         File saveFile = getSavePath().toFile();
         return saveFile.exists() && saveFile.isFile();
     }
+
+    /**
+     * Timing metrics of the saves of a save file.
+     */
+    public static class SaveMetrics {
+        private volatile long lastSnapshotNanos;
+        private volatile long lastWriteNanos;
+        private volatile long lastBytes;
+        private final AtomicLong completedSaves = new AtomicLong();
+        private final AtomicLong coalescedSaves = new AtomicLong();
+        private final AtomicLong failedSaves = new AtomicLong();
+        private final AtomicLong skippedWrites = new AtomicLong();
+        private final AtomicLong skippedSerializations = new AtomicLong();
+        private final AtomicLong totalSaveNanos = new AtomicLong();
+
+        /**
+         * @return the time the last JSON tree snapshot of an autosave took on the main thread, in nanoseconds
+         */
+        public long getLastSnapshotNanos() {
+            return lastSnapshotNanos;
+        }
+
+        /**
+         * @return the time the last serialization and file write took, which are streamed together, in nanoseconds
+         */
+        public long getLastWriteNanos() {
+            return lastWriteNanos;
+        }
+
+        /**
+         * @return the size of the last written file, in bytes
+         */
+        public long getLastBytes() {
+            return lastBytes;
+        }
+
+        /**
+         * @return the amount of saves that have been written to disk
+         */
+        public long getCompletedSaves() {
+            return completedSaves.get();
+        }
+
+        /**
+         * @return the amount of save requests that were replaced by a later request while a save was in progress
+         */
+        public long getCoalescedSaves() {
+            return coalescedSaves.get();
+        }
+
+        /**
+         * @return the amount of saves that were serialized but not written, because the content was unchanged
+         */
+        public long getSkippedWrites() {
+            return skippedWrites.get();
+        }
+
+        /**
+         * @return the amount of autosaves that were skipped entirely, because the data was not marked as changed
+         */
+        public long getSkippedSerializations() {
+            return skippedSerializations.get();
+        }
+
+        /**
+         * @return the amount of saves that failed
+         */
+        public long getFailedSaves() {
+            return failedSaves.get();
+        }
+
+        /**
+         * @return the average time spent serializing and writing a save, in nanoseconds
+         */
+        public long getAverageSaveNanos() {
+            long saves = completedSaves.get();
+            return saves == 0 ? 0 : totalSaveNanos.get() / saves;
+        }
+    }
 }
@@ -0,0 +1,359 @@
+package me.gimme.gimmecore.util;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * A store of numeric per-player statistics (such as kills, deaths, playtime and currency) in fixed-size records of a
+ * memory-mapped file.
+ * <p>
+ * Every player has a slot with one 64-bit value per stat, and reading or updating a stat is a primitive operation on
+ * the mapped file that never allocates or serializes anything. The operating system writes the changes to disk in the
+ * background, and {@link #force()} (or {@link #autoforce(Plugin, long)}) makes sure they have been written.
+ * <p>
+ * Stats are identified by their index in the names the store was opened with. Stats can be appended to the names in
+ * later versions, in which case the file is migrated to the new layout when it is opened, but existing stats must not
+ * be removed or reordered. All reads and updates must be made on the main thread.
+ */
+public class StatStore implements PersistentStore {
+
+    private static final int MAGIC = 0x47435354;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int STAT_COUNT_OFFSET = 8;
+    private static final int RECORD_COUNT_OFFSET = 12;
+    private static final int KEY_BYTES = 16;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private Plugin plugin;
+    private Path path;
+    private String[] statNames;
+    private int recordBytes;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int recordCount;
+    private Map<UUID, Integer> slotByPlayer = new HashMap<>();
+    private List<UUID> playerBySlot = new ArrayList<>();
+
+    /**
+     * @param plugin    the plugin whose data folder to store the file in
+     * @param filePath  the path to the file, relative to the plugin's data folder
+     * @param statNames the names of the stats, in the order of their indices
+     */
+    public StatStore(@NotNull Plugin plugin, @NotNull String filePath, @NotNull String... statNames) {
+        this.plugin = plugin;
+        this.path = Paths.get(plugin.getDataFolder().getAbsolutePath(), filePath);
+        this.statNames = statNames.clone();
+        this.recordBytes = KEY_BYTES + statNames.length * Long.BYTES;
+    }
+
+    /**
+     * Opens and maps the file, creating it if it does not exist and migrating it if stats have been appended.
+     *
+     * @return this
+     * @throws IOException if the file could not be opened or is not a stat store with a compatible layout
+     */
+    @NotNull
+    public StatStore open() throws IOException {
+        Files.createDirectories(path.getParent());
+        migrateIfNeeded();
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = channel.size() < HEADER_BYTES;
+        capacity = created ? INITIAL_CAPACITY
+                : Math.max(INITIAL_CAPACITY, (int) ((channel.size() - HEADER_BYTES) / recordBytes));
+        map(capacity);
+
+        if (created) {
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            buffer.putInt(VERSION_OFFSET, VERSION);
+            buffer.putInt(STAT_COUNT_OFFSET, statNames.length);
+            buffer.putInt(RECORD_COUNT_OFFSET, 0);
+        }
+
+        recordCount = Math.min(buffer.getInt(RECORD_COUNT_OFFSET), capacity);
+        for (int slot = 0; slot < recordCount; slot++) {
+            int offset = offset(slot);
+            UUID playerId = new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+            slotByPlayer.put(playerId, slot);
+            playerBySlot.add(playerId);
+        }
+        return this;
+    }
+
+    /**
+     * Rewrites an existing file with fewer stats than this store into the current layout.
+     * <p>
+     * The files are copied with plain channel reads and writes instead of being mapped, and both are closed before the
+     * new file replaces the old one, since a file that is still mapped cannot be replaced on some platforms (such as
+     * Windows).
+     */
+    private void migrateIfNeeded() throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) < HEADER_BYTES) return;
+
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        int oldStatCount;
+        try (FileChannel oldChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer oldHeader = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(oldChannel, oldHeader, 0);
+            if (oldHeader.getInt(MAGIC_OFFSET) != MAGIC || oldHeader.getInt(VERSION_OFFSET) > VERSION)
+                throw new IOException(path + " is not a compatible stat store");
+
+            oldStatCount = oldHeader.getInt(STAT_COUNT_OFFSET);
+            if (oldStatCount == statNames.length) return;
+            if (oldStatCount > statNames.length)
+                throw new IOException(path + " has " + oldStatCount + " stats, but only " + statNames.length +
+                        " are defined");
+
+            int oldRecordBytes = KEY_BYTES + oldStatCount * Long.BYTES;
+            int records = oldHeader.getInt(RECORD_COUNT_OFFSET);
+
+            try (FileChannel newChannel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer newHeader = ByteBuffer.allocate(HEADER_BYTES);
+                newHeader.putInt(MAGIC_OFFSET, MAGIC);
+                newHeader.putInt(VERSION_OFFSET, VERSION);
+                newHeader.putInt(STAT_COUNT_OFFSET, statNames.length);
+                newHeader.putInt(RECORD_COUNT_OFFSET, records);
+                writeFully(newChannel, newHeader, 0);
+
+                // The appended stats of every record start at zero
+                int batchRecords = Math.max(1, 64 * 1024 / recordBytes);
+                ByteBuffer oldBatch = ByteBuffer.allocate(batchRecords * oldRecordBytes);
+                ByteBuffer newBatch = ByteBuffer.allocate(batchRecords * recordBytes);
+                byte[] appendedStats = new byte[recordBytes - oldRecordBytes];
+                for (int slot = 0; slot < records; slot += batchRecords) {
+                    int count = Math.min(batchRecords, records - slot);
+                    oldBatch.clear();
+                    oldBatch.limit(count * oldRecordBytes);
+                    readFully(oldChannel, oldBatch, HEADER_BYTES + (long) slot * oldRecordBytes);
+
+                    newBatch.clear();
+                    for (int i = 0; i < count; i++) {
+                        newBatch.put(oldBatch.array(), i * oldRecordBytes, oldRecordBytes);
+                        newBatch.put(appendedStats);
+                    }
+                    newBatch.flip();
+                    writeFully(newChannel, newBatch, HEADER_BYTES + (long) slot * recordBytes);
+                }
+                newChannel.force(true);
+            }
+        }
+
+        Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        plugin.getLogger().info("Migrated " + path.getFileName() + " from " + oldStatCount + " to " +
+                statNames.length + " stats");
+    }
+
+    private static void readFully(@NotNull FileChannel channel, @NotNull ByteBuffer buffer, long position)
+            throws IOException {
+        buffer.rewind();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) throw new EOFException("Unexpected end of stat store");
+        }
+    }
+
+    private static void writeFully(@NotNull FileChannel channel, @NotNull ByteBuffer buffer, long position)
+            throws IOException {
+        buffer.rewind();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private void map(int capacity) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * recordBytes);
+        this.capacity = capacity;
+    }
+
+    private int offset(int slot) {
+        return HEADER_BYTES + slot * recordBytes;
+    }
+
+    private int offset(int slot, int stat) {
+        return HEADER_BYTES + slot * recordBytes + KEY_BYTES + stat * Long.BYTES;
+    }
+
+    /**
+     * @param statName the name of the stat
+     * @return the index of the stat, to look up once and use in all reads and updates
+     * @throws IllegalArgumentException if there is no stat with the name
+     */
+    public int getStatIndex(@NotNull String statName) {
+        for (int i = 0; i < statNames.length; i++) {
+            if (statNames[i].equals(statName)) return i;
+        }
+        throw new IllegalArgumentException("Unknown stat: " + statName);
+    }
+
+    /**
+     * @param playerId the UUID of the player
+     * @return the slot of the player, or -1 if the player has no stats
+     */
+    public int getSlot(@NotNull UUID playerId) {
+        Integer slot = slotByPlayer.get(playerId);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * @param playerId the UUID of the player
+     * @return the slot of the player, which is allocated with all stats at zero if the player has no stats
+     */
+    public int getOrCreateSlot(@NotNull UUID playerId) {
+        Integer existing = slotByPlayer.get(playerId);
+        if (existing != null) return existing;
+
+        if (recordCount == capacity) {
+            try {
+                map(capacity * 2);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not grow " + path, e);
+            }
+        }
+
+        int slot = recordCount;
+        int offset = offset(slot);
+        buffer.putLong(offset, playerId.getMostSignificantBits());
+        buffer.putLong(offset + 8, playerId.getLeastSignificantBits());
+        for (int stat = 0; stat < statNames.length; stat++) {
+            buffer.putLong(offset(slot, stat), 0);
+        }
+        buffer.putInt(RECORD_COUNT_OFFSET, ++recordCount);
+
+        slotByPlayer.put(playerId, slot);
+        playerBySlot.add(playerId);
+        return slot;
+    }
+
+    /**
+     * @param slot the slot of the player
+     * @return the UUID of the player in the slot
+     */
+    @NotNull
+    public UUID getPlayer(int slot) {
+        return playerBySlot.get(slot);
+    }
+
+    /**
+     * @return the amount of players with stats, whose slots are 0 (inclusive) to this (exclusive)
+     */
+    public int size() {
+        return recordCount;
+    }
+
+    public long getLong(int slot, int stat) {
+        return buffer.getLong(offset(slot, stat));
+    }
+
+    public void setLong(int slot, int stat, long value) {
+        buffer.putLong(offset(slot, stat), value);
+    }
+
+    /**
+     * @return the new value of the stat
+     */
+    public long addLong(int slot, int stat, long delta) {
+        int offset = offset(slot, stat);
+        long value = buffer.getLong(offset) + delta;
+        buffer.putLong(offset, value);
+        return value;
+    }
+
+    public double getDouble(int slot, int stat) {
+        return Double.longBitsToDouble(buffer.getLong(offset(slot, stat)));
+    }
+
+    public void setDouble(int slot, int stat, double value) {
+        buffer.putLong(offset(slot, stat), Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * @return the new value of the stat
+     */
+    public double addDouble(int slot, int stat, double delta) {
+        int offset = offset(slot, stat);
+        double value = Double.longBitsToDouble(buffer.getLong(offset)) + delta;
+        buffer.putLong(offset, Double.doubleToRawLongBits(value));
+        return value;
+    }
+
+    /**
+     * @param playerId the UUID of the player
+     * @param stat     the index of the stat
+     * @return the value of the stat of the player, or 0 if the player has no stats
+     */
+    public long getLong(@NotNull UUID playerId, int stat) {
+        int slot = getSlot(playerId);
+        return slot == -1 ? 0 : getLong(slot, stat);
+    }
+
+    /**
+     * @param playerId the UUID of the player
+     * @param stat     the index of the stat
+     * @param delta    the amount to add to the stat
+     * @return the new value of the stat
+     */
+    public long addLong(@NotNull UUID playerId, int stat, long delta) {
+        return addLong(getOrCreateSlot(playerId), stat, delta);
+    }
+
+    /**
+     * Forces all changes to be written to disk.
+     */
+    public void force() {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer != null) buffer.force();
+    }
+
+    /**
+     * The stats are always up to date in the mapped file, so the returned task only forces them to be written.
+     */
+    @NotNull
+    @Override
+    public List<Flush> prepareFlush() {
+        return Collections.singletonList(this::force);
+    }
+
+    /**
+     * Forces all changes to be written to disk on the I/O executor at the specified period.
+     *
+     * @param plugin the plugin to run the task with
+     * @param period the period between forced writes in ticks
+     */
+    public void autoforce(@NotNull Plugin plugin, long period) {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                IoExecutor.get().execute(StatStore.this::force);
+            }
+        }.runTaskTimer(plugin, period, period);
+    }
+
+    /**
+     * Forces all changes to be written to disk and closes the file. Should be called when the plugin is disabled.
+     *
+     * @throws IOException if the file could not be closed
+     */
+    public void close() throws IOException {
+        if (channel == null) return;
+        force();
+        channel.close();
+        channel = null;
+        buffer = null;
+    }
+
+}
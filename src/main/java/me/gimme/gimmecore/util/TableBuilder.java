@@ -2,6 +2,8 @@ package me.gimme.gimmecore.util;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.util.function.Function;
+
 public interface TableBuilder {
 
     enum Alignment {
@@ -53,6 +55,22 @@ public interface TableBuilder {
      */
     ChatTableBuilder addRow(String... strings);
 
+    /**
+     * Adds a row for each of the specified elements, for example the content of a {@link Pageifier.PageResult}.
+     *
+     * @param elements  the elements to add rows for, in order
+     * @param rowMapper a function that returns the row entry (one string for each column) of an element
+     * @param <E>       the type of the elements
+     * @return this
+     */
+    default <E> TableBuilder addRows(@NotNull Iterable<? extends E> elements,
+                                     @NotNull Function<? super E, String[]> rowMapper) {
+        for (E element : elements) {
+            addRow(rowMapper.apply(element));
+        }
+        return this;
+    }
+
     /**
      * Adds a row to the table with common formatting.
      * For example, this can be used to add a row of column-titles that are all bold and underlined.
@@ -1,8 +1,11 @@
 package me.gimme.gimmecore.util.countdown;
 
+import me.gimme.gimmecore.GimmeCore;
+import me.gimme.gimmecore.chat.HudBuffer;
 import org.bukkit.Server;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -10,6 +13,7 @@ import java.util.UUID;
 
 public class PlayerCountdownTimerTask extends CountdownTimerTask {
     private Server server;
+    private HudBuffer hudBuffer;
     private UUID playerId;
     @Nullable private String title;
     @Nullable private String subtitle;
@@ -22,6 +26,7 @@ public class PlayerCountdownTimerTask extends CountdownTimerTask {
         super(plugin, seconds);
 
         this.server = plugin.getServer();
+        this.hudBuffer = JavaPlugin.getPlugin(GimmeCore.class).getHudBuffer();
         this.playerId = player.getUniqueId();
         this.title = title;
         this.subtitle = subtitle;
@@ -34,7 +39,7 @@ public class PlayerCountdownTimerTask extends CountdownTimerTask {
         Player player = server.getPlayer(playerId);
         if (player == null || !player.isOnline()) return;
 
-        player.sendTitle(title, subtitle + " " + getSeconds() + "s", 0, 25, 10);
+        hudBuffer.setTitle(player, title, subtitle + " " + getSeconds() + "s", 0, 25, 10, HudBuffer.PRIORITY_NORMAL);
     }
 
     @Override
@@ -42,6 +47,6 @@ public class PlayerCountdownTimerTask extends CountdownTimerTask {
         Player player = server.getPlayer(playerId);
         if (player == null || !player.isOnline()) return;
 
-        player.sendTitle(finishTitle, finishSubtitle, 0, 20, 20);
+        hudBuffer.setTitle(player, finishTitle, finishSubtitle, 0, 20, 20, HudBuffer.PRIORITY_NORMAL);
     }
 }
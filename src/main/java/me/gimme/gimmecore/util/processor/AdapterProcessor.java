@@ -0,0 +1,336 @@
+package me.gimme.gimmecore.util.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates a Gson type adapter for every class annotated with {@code me.gimme.gimmecore.util.GenerateAdapter}, which
+ * reads and writes the fields of the class directly instead of through reflection. Runs automatically when compiling
+ * against GimmeCore.
+ */
+public class AdapterProcessor extends AbstractProcessor {
+
+    private static final String ANNOTATION = "me.gimme.gimmecore.util.GenerateAdapter";
+    private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+    private static final String ADAPTER_SUFFIX = "_GsonAdapter";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(ANNOTATION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@GenerateAdapter can only be used on classes");
+                    continue;
+                }
+                generate((TypeElement) element);
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        if (!validate(type)) return;
+
+        List<Property> properties = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+
+        for (TypeElement current = type; current != null; current = superclassOf(current)) {
+            if (current.getQualifiedName().contentEquals("java.lang.Object")) break;
+            String currentPackage = processingEnv.getElementUtils().getPackageOf(current).getQualifiedName().toString();
+
+            for (Element member : current.getEnclosedElements()) {
+                if (member.getKind() != ElementKind.FIELD) continue;
+                Set<Modifier> modifiers = member.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) continue;
+
+                boolean accessible = modifiers.contains(Modifier.PUBLIC) || (!modifiers.contains(Modifier.PRIVATE) &&
+                        currentPackage.equals(packageName));
+                if (!accessible) {
+                    error(member, "Persisted fields of @GenerateAdapter classes must be accessible from the generated " +
+                            "adapter, make the field non-private or transient");
+                    return;
+                }
+                if (modifiers.contains(Modifier.FINAL)) {
+                    error(member, "Persisted fields of @GenerateAdapter classes must not be final");
+                    return;
+                }
+                if (containsTypeVariable(member.asType())) {
+                    error(member, "Persisted fields of @GenerateAdapter classes must not have type variables");
+                    return;
+                }
+
+                Property property = new Property((VariableElement) member, properties.size());
+                for (String name : property.names) {
+                    if (!names.add(name)) {
+                        error(member, "Duplicate JSON name \"" + name + "\" in " + type.getQualifiedName());
+                        return;
+                    }
+                }
+                properties.add(property);
+            }
+        }
+
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                .replace('$', '_') + ADAPTER_SUFFIX;
+        String typeName = type.getQualifiedName().toString();
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                    packageName.isEmpty() ? simpleName : packageName + "." + simpleName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(render(packageName, simpleName, typeName, properties));
+            }
+        } catch (IOException e) {
+            error(type, "Could not generate the type adapter: " + e.getMessage());
+        }
+    }
+
+    private boolean validate(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.PRIVATE) || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(type, "@GenerateAdapter classes must not be private or abstract");
+            return false;
+        }
+        if (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) {
+            error(type, "Nested @GenerateAdapter classes must be static");
+            return false;
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            error(type, "@GenerateAdapter classes must not have type parameters");
+            return false;
+        }
+
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.CONSTRUCTOR && ((ExecutableElement) member).getParameters().isEmpty()
+                    && !member.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        error(type, "@GenerateAdapter classes must have a non-private no-argument constructor");
+        return false;
+    }
+
+    private TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) return null;
+        return (TypeElement) ((DeclaredType) superclass).asElement();
+    }
+
+    private boolean containsTypeVariable(TypeMirror type) {
+        if (type.getKind() == TypeKind.TYPEVAR || type.getKind() == TypeKind.WILDCARD) return true;
+        if (type.getKind() == TypeKind.ARRAY)
+            return containsTypeVariable(((javax.lang.model.type.ArrayType) type).getComponentType());
+        if (type.getKind() == TypeKind.DECLARED) {
+            for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+                if (containsTypeVariable(argument)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Renders a type as source code, without any type annotations.
+     */
+    private String typeName(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return typeName(((javax.lang.model.type.ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                DeclaredType declaredType = (DeclaredType) type;
+                StringBuilder name = new StringBuilder(
+                        ((TypeElement) declaredType.asElement()).getQualifiedName().toString());
+                List<? extends TypeMirror> arguments = declaredType.getTypeArguments();
+                if (!arguments.isEmpty()) {
+                    name.append('<');
+                    for (int i = 0; i < arguments.size(); i++) {
+                        if (i > 0) name.append(", ");
+                        name.append(typeName(arguments.get(i)));
+                    }
+                    name.append('>');
+                }
+                return name.toString();
+            default:
+                return type.getKind().toString().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private String render(String packageName, String simpleName, String typeName, List<Property> properties) {
+        StringBuilder out = new StringBuilder();
+        out.append("// Generated by GimmeCore's AdapterProcessor, do not edit\n");
+        if (!packageName.isEmpty()) out.append("package ").append(packageName).append(";\n\n");
+
+        out.append("final class ").append(simpleName).append(" extends com.google.gson.TypeAdapter<")
+                .append(typeName).append("> {\n");
+        for (Property property : properties) {
+            if (property.kind != null) continue;
+            out.append("    private final com.google.gson.TypeAdapter<").append(property.boxedType).append("> ")
+                    .append(property.adapterField).append(";\n");
+        }
+
+        out.append("\n    ").append(simpleName).append("(com.google.gson.Gson gson) {\n");
+        for (Property property : properties) {
+            if (property.kind != null) continue;
+            out.append("        this.").append(property.adapterField)
+                    .append(" = gson.getAdapter(new com.google.gson.reflect.TypeToken<").append(property.boxedType)
+                    .append(">() {\n        });\n");
+        }
+        out.append("    }\n");
+
+        out.append("\n    @Override\n    public void write(com.google.gson.stream.JsonWriter out, ").append(typeName)
+                .append(" value) throws java.io.IOException {\n")
+                .append("        if (value == null) {\n            out.nullValue();\n            return;\n        }\n")
+                .append("        out.beginObject();\n");
+        for (Property property : properties) {
+            out.append("        out.name(\"").append(escape(property.names.get(0))).append("\");\n        ")
+                    .append(property.writeStatement()).append("\n");
+        }
+        out.append("        out.endObject();\n    }\n");
+
+        out.append("\n    @Override\n    public ").append(typeName)
+                .append(" read(com.google.gson.stream.JsonReader in) throws java.io.IOException {\n")
+                .append("        if (in.peek() == com.google.gson.stream.JsonToken.NULL) {\n")
+                .append("            in.nextNull();\n            return null;\n        }\n\n")
+                .append("        ").append(typeName).append(" value = new ").append(typeName).append("();\n")
+                .append("        in.beginObject();\n        while (in.hasNext()) {\n")
+                .append("            switch (in.nextName()) {\n");
+        for (Property property : properties) {
+            for (String name : property.names) {
+                out.append("                case \"").append(escape(name)).append("\":\n");
+            }
+            out.append("                    ").append(property.readStatement()).append("\n")
+                    .append("                    break;\n");
+        }
+        out.append("                default:\n                    in.skipValue();\n            }\n        }\n")
+                .append("        in.endObject();\n        return value;\n    }\n}\n");
+        return out.toString();
+    }
+
+    private static String escape(String string) {
+        return string.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * A persisted field of a class.
+     */
+    private class Property {
+        private final String field;
+        private final List<String> names = new ArrayList<>();
+        private final TypeKind kind;
+        private final String boxedType;
+        private final String adapterField;
+
+        private Property(VariableElement element, int index) {
+            this.field = element.getSimpleName().toString();
+            TypeMirror type = element.asType();
+
+            names.add(field);
+            for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+                if (!((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName()
+                        .contentEquals(SERIALIZED_NAME)) continue;
+
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                        annotation.getElementValues().entrySet()) {
+                    String key = entry.getKey().getSimpleName().toString();
+                    if (key.equals("value")) {
+                        names.set(0, (String) entry.getValue().getValue());
+                    } else if (key.equals("alternate")) {
+                        for (Object alternate : (List<?>) entry.getValue().getValue()) {
+                            names.add((String) ((AnnotationValue) alternate).getValue());
+                        }
+                    }
+                }
+            }
+
+            String typeName = typeName(type);
+            boolean string = typeName.equals("java.lang.String");
+            this.kind = type.getKind().isPrimitive() ? type.getKind() : string ? TypeKind.DECLARED : null;
+            this.boxedType = type.getKind().isPrimitive()
+                    ? processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type)
+                    .getQualifiedName().toString()
+                    : typeName;
+            this.adapterField = "adapter" + index;
+        }
+
+        private String writeStatement() {
+            String value = "value." + field;
+            if (kind == null) return adapterField + ".write(out, " + value + ");";
+            switch (kind) {
+                case CHAR:
+                    return "out.value(String.valueOf(" + value + "));";
+                case FLOAT:
+                    return "out.value((Number) Float.valueOf(" + value + "));";
+                case BYTE:
+                case SHORT:
+                case INT:
+                    return "out.value((long) " + value + ");";
+                default:
+                    return "out.value(" + value + ");";
+            }
+        }
+
+        private String readStatement() {
+            String target = "value." + field + " = ";
+            if (kind == null) return target + adapterField + ".read(in);";
+            if (kind == TypeKind.DECLARED)
+                return target + "me.gimme.gimmecore.util.GeneratedAdapterFactory.readString(in);";
+
+            String read;
+            switch (kind) {
+                case BOOLEAN:
+                    read = "in.nextBoolean()";
+                    break;
+                case BYTE:
+                    read = "(byte) in.nextInt()";
+                    break;
+                case SHORT:
+                    read = "(short) in.nextInt()";
+                    break;
+                case INT:
+                    read = "in.nextInt()";
+                    break;
+                case LONG:
+                    read = "in.nextLong()";
+                    break;
+                case FLOAT:
+                    read = "(float) in.nextDouble()";
+                    break;
+                case DOUBLE:
+                    read = "in.nextDouble()";
+                    break;
+                case CHAR:
+                    read = "in.nextString().charAt(0)";
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+            return "if (in.peek() == com.google.gson.stream.JsonToken.NULL) in.nextNull();\n" +
+                    "                    else " + target + read + ";";
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package me.gimme.gimmecore.chat;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
+
+/**
+ * Compares preparing a broadcast for 500 recipients by parsing the text for every recipient, as before, with
+ * preparing it once through {@link PreparedMessage}. Also counts how often the broadcast is parsed again while
+ * per-player action bars are sent: when they are prepared with {@link PreparedMessage#of(String)} they evict the
+ * broadcast from the cache, and when they are prepared with {@link PreparedMessage#parse(String)} it stays cached.
+ * <p>
+ * Run with {@code java -cp target/classes:target/test-classes:<spigot-api> me.gimme.gimmecore.chat
+ * .PreparedMessageBenchmark}.
+ */
+public class PreparedMessageBenchmark {
+
+    private static final String BROADCAST = "\u00a76\u00a7lEvent \u00a78> \u00a7eThe \u00a7c\u00a7lDragon " +
+            "\u00a7ehas spawned at \u00a7b(120, 64, -340)\u00a7e!";
+    private static final String PER_PLAYER_TEXT = "\u00a7aCooldown: \u00a7f";
+    private static final int RECIPIENTS = 500;
+    private static final int PER_PLAYER_TEXTS = 300;
+    private static final int TICKS = 100;
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+    private static final int OPERATIONS = 200;
+
+    private static int sink;
+
+    public static void main(String[] args) {
+        report("parse per recipient", () -> {
+            for (int i = 0; i < RECIPIENTS; i++) {
+                consume(TextComponent.fromLegacyText(BROADCAST));
+            }
+        });
+        report("PreparedMessage.of once", () -> {
+            BaseComponent[] components = PreparedMessage.of(BROADCAST).getComponents();
+            for (int i = 0; i < RECIPIENTS; i++) {
+                consume(components);
+            }
+        });
+
+        System.out.println("broadcast parses in " + TICKS + " ticks, per-player text cached: " +
+                countBroadcastParses(true));
+        System.out.println("broadcast parses in " + TICKS + " ticks, per-player text parsed: " +
+                countBroadcastParses(false));
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /**
+     * Simulates ticks where every player gets its own action bar and the same broadcast is sent to everyone, and
+     * counts how many times the broadcast had to be parsed again.
+     */
+    private static int countBroadcastParses(boolean cachePerPlayerText) {
+        int parses = 0;
+        PreparedMessage previous = null;
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (int i = 0; i < PER_PLAYER_TEXTS; i++) {
+                String text = PER_PLAYER_TEXT + tick + "." + i + "s";
+                consume((cachePerPlayerText ? PreparedMessage.of(text) : PreparedMessage.parse(text)).getComponents());
+            }
+            PreparedMessage broadcast = PreparedMessage.of(BROADCAST);
+            if (broadcast != previous) parses++;
+            previous = broadcast;
+        }
+        return parses;
+    }
+
+    private static void consume(BaseComponent[] components) {
+        sink += components.length;
+    }
+
+    private static void report(String name, Runnable operation) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(operation);
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            best = Math.min(best, run(operation));
+        }
+        System.out.printf("%-32s %10.1f us/op%n", name, (double) best / OPERATIONS / 1000);
+    }
+
+    private static long run(Runnable operation) {
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            operation.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+}
@@ -0,0 +1,68 @@
+package me.gimme.gimmecore.language;
+
+import java.util.regex.Matcher;
+
+/**
+ * Compares rendering a precompiled {@link MessageTemplate} with the previous way of rendering language strings, which
+ * ran one {@link String#replaceAll(String, String)} per placeholder and split arrays with {@link String#split(String)}.
+ * <p>
+ * Run with {@code java -cp target/classes:target/test-classes me.gimme.gimmecore.language.MessageTemplateBenchmark}.
+ */
+public class MessageTemplateBenchmark {
+
+    private static final String TEXT = "&e%player% &7has been awarded &a%amount% %currency% &7for reaching &b%rank%" +
+            "&7 in &6%arena%&7!";
+    private static final String ARRAY_TEXT = "&aFirst line###&7Second line with %player%###&7Third line###&eFourth";
+    private static final String[] PLACEHOLDERS = {"player", "amount", "currency", "rank", "arena"};
+    private static final String[] VALUES = {"Notch", "1500", "coins", "Diamond III", "Skywars"};
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+    private static final int OPERATIONS = 200_000;
+
+    private static int sink;
+
+    public static void main(String[] args) {
+        MessageTemplate template = MessageTemplate.compile(TEXT, "%");
+        MessageTemplate arrayTemplate = MessageTemplate.compile(ARRAY_TEXT, "%");
+        String[] arrayValues = {"Notch"};
+
+        report("replaceAll per placeholder", () -> {
+            String text = TEXT;
+            for (int i = 0; i < PLACEHOLDERS.length; i++) {
+                text = text.replaceAll("%" + PLACEHOLDERS[i] + "%", Matcher.quoteReplacement(VALUES[i]));
+            }
+            sink += text.length();
+        });
+        report("MessageTemplate.render", () -> sink += template.render(VALUES).length());
+
+        report("replaceAll + String.split", () -> {
+            String text = ARRAY_TEXT.replaceAll("%player%", "Notch");
+            sink += text.split("###").length;
+        });
+        report("render + MessageTemplate.split", () ->
+                sink += MessageTemplate.split(arrayTemplate.render(arrayValues), "###").length);
+
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private static void report(String name, Runnable operation) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(operation);
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            best = Math.min(best, run(operation));
+        }
+        System.out.printf("%-32s %8.1f ns/op%n", name, (double) best / OPERATIONS);
+    }
+
+    private static long run(Runnable operation) {
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            operation.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+}
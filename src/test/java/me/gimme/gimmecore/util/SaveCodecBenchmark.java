@@ -0,0 +1,127 @@
+package me.gimme.gimmecore.util;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Compares the save time, load time and file size of every {@link SaveCodec} on a generated save file of 2,000 player
+ * records, written and read through {@link JsonFiles} like the stores do.
+ * <p>
+ * Run with {@code java -cp target/classes:target/test-classes:<dependencies> me.gimme.gimmecore.util
+ * .SaveCodecBenchmark}.
+ */
+public class SaveCodecBenchmark {
+
+    private static final SaveCodec[] CODECS = {SaveCodec.PLAIN_JSON, SaveCodec.COMPACT_JSON, SaveCodec.GZIP_JSON,
+            SaveCodec.DEFLATE_JSON, SaveCodec.BINARY, SaveCodec.GZIP_BINARY, SaveCodec.DEFLATE_BINARY};
+    private static final String[] KITS = {"warrior", "archer", "miner", "builder", "scout", "healer", "tank"};
+    private static final String[] WORLDS = {"world", "world_nether", "world_the_end", "arena"};
+    private static final int PLAYERS = 2000;
+    private static final Type RECORDS_TYPE = new TypeToken<Map<String, PlayerRecord>>() {
+    }.getType();
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+    private static final int OPERATIONS = 5;
+
+    private static int sink;
+
+    public static void main(String[] args) throws IOException {
+        Map<String, PlayerRecord> records = generateRecords();
+        Path directory = Files.createTempDirectory("gimmecore-codecs");
+
+        System.out.printf("%-16s %10s %10s %10s%n", "codec", "save ms", "load ms", "size KiB");
+        for (SaveCodec codec : CODECS) {
+            Path path = directory.resolve(codec + ".dat");
+            double saveMillis = measure(() -> JsonFiles.write(path, records, RECORDS_TYPE, JsonFiles.GSON, codec));
+            double loadMillis = measure(() -> {
+                Map<String, PlayerRecord> read = JsonFiles.read(path, RECORDS_TYPE, JsonFiles.GSON);
+                sink += read.size();
+            });
+            System.out.printf("%-16s %10.2f %10.2f %10.1f%n", codec, saveMillis, loadMillis,
+                    Files.size(path) / 1024.0);
+            Files.delete(path);
+        }
+        Files.delete(directory);
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /**
+     * Generates the same pseudo-random records on every run.
+     */
+    private static Map<String, PlayerRecord> generateRecords() {
+        Random random = new Random(42);
+        Map<String, PlayerRecord> records = new LinkedHashMap<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            PlayerRecord record = new PlayerRecord();
+            record.name = "Player" + random.nextInt(1_000_000);
+            record.kills = random.nextInt(5000);
+            record.deaths = random.nextInt(5000);
+            record.balance = Math.round(random.nextDouble() * 1_000_000) / 100.0;
+            record.lastSeen = 1_600_000_000_000L + random.nextInt(Integer.MAX_VALUE);
+            record.world = WORLDS[random.nextInt(WORLDS.length)];
+            record.x = random.nextInt(20000) - 10000;
+            record.y = random.nextInt(256);
+            record.z = random.nextInt(20000) - 10000;
+            for (String kit : KITS) {
+                if (random.nextBoolean()) record.unlockedKits.add(kit);
+            }
+            for (String kit : record.unlockedKits) {
+                record.kitUses.put(kit, random.nextInt(300));
+            }
+            records.put(new UUID(random.nextLong(), random.nextLong()).toString(), record);
+        }
+        return records;
+    }
+
+    /**
+     * @return the best time of an operation in milliseconds
+     */
+    private static double measure(Operation operation) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(operation);
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            best = Math.min(best, run(operation));
+        }
+        return (double) best / OPERATIONS / 1_000_000;
+    }
+
+    private static long run(Operation operation) {
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < OPERATIONS; i++) {
+                operation.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private interface Operation {
+        void run() throws IOException;
+    }
+
+    private static class PlayerRecord {
+        private String name;
+        private int kills;
+        private int deaths;
+        private double balance;
+        private long lastSeen;
+        private String world;
+        private int x;
+        private int y;
+        private int z;
+        private List<String> unlockedKits = new ArrayList<>();
+        private Map<String, Integer> kitUses = new HashMap<>();
+    }
+
+}